@@ -6,12 +6,9 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -20,19 +17,23 @@ import org.json.simple.JSONObject;
 import data.DataReader;
 import data.DataWriter;
 import data.EntailmentDecision;
+import data.SearchStats;
 import eval.Accuracy;
+import eval.ScreeningCutoffs;
+import eval.ThresholdSweep;
 import models.ContextCheck;
-import models.GraphNavigation;
+import models.SearchBudget;
 import models.TreeEditDistance;
 import util.Configuration;
-import util.IndraCall;
+import util.SentenceAnnotation;
 import util.TextHandler;
 
 public class Entailment {
 	
-	private static final int maxEntries = 5;
+	private static SearchBudget budget;
 	private static TextHandler th;
 	private static String configFile;
+	private static EntailmentEngine engine;
 	
 	public Entailment(String kb, String conf){
 		
@@ -48,6 +49,7 @@ public class Entailment {
 		try{
 			Configuration config = new Configuration(configFile);
 			th = new TextHandler(config.params.get("wnpath"), kb);
+			budget = new SearchBudget(config);
 		}
 		catch (IOException e){
 			e.printStackTrace();
@@ -56,127 +58,9 @@ public class Entailment {
 		System.out.println("Done.");
 	}
 	
-	//Sort a set of values
-	private <T extends Comparable<? super T>> List<T> asSortedList(Collection<T> c) {
-		List<T> list = new ArrayList<T>(c);
-		java.util.Collections.sort(list);
-		return list;
-	}
-	
-	//Annotate a dataset based on a given threshold for training
-	@SuppressWarnings("unchecked")
-	private List<JSONObject> getAnnotations (List<JSONObject> data, float distance){
-		
-		for (JSONObject pair : data){
-			float pairDist = (float) pair.get("distance");
-			
-			if (pairDist < distance){
-				pair.put("answer", "yes");
-			}
-			else{
-				pair.put("answer", "no");
-			}
-		}
-		
-		return data;
-	}
-	
-	//Match individual words to the multi-word phrases that contain them, if any
-  	private List<String> matchPhrases (List<String> tokens, List<String> phrases){
-
-  		List<String> matched = new ArrayList<String>();
-
-  		for (String token : tokens){
-  			String word = token.split(";")[0];
-  			String pos = token.split(";")[1];
-  			
-  			for (int i=0; i < phrases.size(); i++){
-  				String phrase = phrases.get(i).split(";")[0];
-
-  				if (phrase.startsWith(th.normalize(word, pos)) || phrase.endsWith(th.normalize(word, pos))){
-  					String entry = phrases.get(i).split(";")[0] + ";" + pos;
-  					
-  					if (!matched.contains(entry)){
-  						matched.add(entry);
-  					}	
-  					break;
-  				}
-  			}
-  		}
-  		return matched;
-  	}
-  	
-  	//Identify the pairs of words (the source, coming from the text, and the target, coming from the 
-  	//hypothesis) to be sent as input to the Graph Navigation model
-  	@SuppressWarnings("rawtypes")
-	private List<List<String>> getSourceTargetPairs (String text, String hyp){
-		
-		List<List<String>> pairs = new ArrayList<List<String>>();
-		List<List<String>> cleanedPair = th.cleanPair(text, hyp);
-		
-		try{
-			List<String> textTokens = cleanedPair.get(0);
-			List<String> textChunks = th.split(text);
-			List<String> textPhrases = matchPhrases(textTokens, textChunks);
-			
-			List<String> hypTokens = cleanedPair.get(1);
-			List<String> hypChunks = th.split(hyp);
-			List<String> hypPhrases = matchPhrases(hypTokens, hypChunks);
-			
-			//Find the best pairs
-			List<String> allPairs = new ArrayList<String>();
-			
-			//Combine all words from text to all words from hypothesis
-			for (String textWord : textPhrases){
-				String tWord = textWord.split(";")[0];
-				String tPos = textWord.split(";")[1];
-	
-				for (String hypWord : hypPhrases){
-					String hWord = hypWord.split(";")[0];
-					String hPos = hypWord.split(";")[1];
-	
-					List<Map> scores = IndraCall.getResponse(tWord, Arrays.asList(hWord));
-	
-					for (Map score : scores){
-						String item = score.get("t1") +  "#" + tPos + ";" + score.get("t2") + "#" + hPos + ";" + score.get("score");
-						allPairs.add(item);
-					}
-				}
-			}
-					
-			//Sort combined pairs according to their semantic similarity, using insertion sort
-			String temp;
-	
-			for (int i=1; i < allPairs.size(); i++){			
-				for (int j = i ; j > 0 ; j--){
-					Double score1 = Math.abs(Double.parseDouble(allPairs.get(j).split(";")[2]));
-					Double score2 = Math.abs(Double.parseDouble(allPairs.get(j-1).split(";")[2]));
-	
-					if (score1 > score2){ //descending order
-						temp = allPairs.get(j);
-						allPairs.set(j, allPairs.get(j-1));
-						allPairs.set(j-1, temp);
-					}
-				}
-			}
-	
-			//Get best pairs
-			int maxPairs = Math.min(allPairs.size(), maxEntries);
-			for (int k=0; k < maxPairs; k++){
-				String item = allPairs.get(k);
-				List<String> pair = Arrays.asList(item.split(";")[0], item.split(";")[1]);
-				pairs.add(pair);
-			}
-		}
-		catch (Exception e){
-			e.printStackTrace();
-		}
-		
-		return pairs;
-	}
-  	
-  	//Write the TED threshold to the configuration file after learning it from a training dataset
-  	private void writeThreshold (float threshold){
+  	//Write the TED parameters to the configuration file after learning them from a training dataset, adding the
+  	//ones that are not there yet
+  	private void writeParameters (Map<String, String> parameters){
   		
   		try{
 			BufferedReader br = new BufferedReader(new FileReader(configFile));
@@ -191,16 +75,26 @@ public class Entailment {
 		        }
 		        
 				String inputStr = inputBuffer.toString();
-		        inputStr = inputStr.replaceFirst("tedthreshold = .*\\n", "tedthreshold = " + threshold + "\n");
+		        
+		        for (Map.Entry<String, String> parameter : parameters.entrySet()){
+		        	String entry = parameter.getKey() + " = " + parameter.getValue() + "\n";
+		        	
+		        	if (inputStr.contains(parameter.getKey() + " = ")){
+		        		inputStr = inputStr.replaceFirst(parameter.getKey() + " = .*\\n", entry);
+		        	}
+		        	else{
+		        		inputStr += entry;
+		        	}
+		        }
 		        br.close();
 		        
-		        //Write the config file with the new parameter
+		        //Write the config file with the new parameters
 		        try {
 			        FileWriter writer = new FileWriter(configFile);
 			        writer.write(inputStr);
 			        writer.flush();
 			        writer.close();
-			        System.out.println("Threshold written to configuration file.");
+			        System.out.println("Parameters written to configuration file.");
 			    }catch(IOException e){  
 					e.printStackTrace();
 				}
@@ -214,115 +108,209 @@ public class Entailment {
 		}
   	}
   	
-  	//Train the TreeEditDistance component to learn the best threshold
-  	@SuppressWarnings("unchecked")
+  	//Train the TreeEditDistance component to learn the best threshold, optionally running a k-fold cross-validation
+  	//first (as set by tedfolds in the configuration file)
 	public void train (String traindataset){
 		
+		Configuration config = new Configuration(configFile);
+		String folds = config.params.get("tedfolds");
+		
+		train(traindataset, (folds == null) ? 0 : Integer.parseInt(folds.trim()));
+	}
+	
+	//Train the TreeEditDistance component with a k-fold cross-validation (none if folds is lower than 2), then learn 
+	//the threshold on the whole dataset
+	public void train (String traindataset, int folds){
+		
 		System.out.println("Training...");
 		
 		TreeEditDistance ted = new TreeEditDistance(configFile);
 		DataReader dr = new DataReader();
 		List<JSONObject> data = dr.readTextDataset(traindataset);
-		Set<Float> distances = new HashSet<Float>();
-		Double maxF1 = 0.0;
-		float threshold = 0;
-		
-		for (JSONObject pair : data){
-			String text = (String) pair.get("text");
-			String hyp = (String) pair.get("hypothesis");
-			float distance = ted.computeDistance(text, hyp);
-			
-			pair.put("distance", distance);
+		boolean[] entailments = new boolean[data.size()];
+		List<String> texts = new ArrayList<String>();
+		List<String> hyps = new ArrayList<String>();
+		
+		for (int i=0; i < data.size(); i++){
+			JSONObject pair = data.get(i);
 			
-			distances.add(distance);
+			texts.add((String) pair.get("text"));
+			hyps.add((String) pair.get("hypothesis"));
+			entailments[i] = ((String) pair.get("entailment")).equalsIgnoreCase("yes");
 		}
 		
-		List<Float> sortedDists = asSortedList(distances);
+		//Compute the distances of all pairs at the same time, with the number of threads set by tedthreads
+		String threads = new Configuration(configFile).params.get("tedthreads");
+		int numThreads = (threads == null) ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads.trim());
+		float[] distances = ted.computeDistances(texts, hyps, Math.max(1, numThreads));
 		
-		for (Float distance : sortedDists){
-			List<JSONObject> annotated = getAnnotations(data, distance);
-			Accuracy acc = new Accuracy();
-			
-			Double tp = 0.0;
-			Double fp = 0.0;
-			Double fn = 0.0;
-			Double tn = 0.0;
+		//Keep the parsed sentences for the next runs
+		ted.saveCache();
+		
+		List<String> report = new ArrayList<String>();
+		
+		if (folds > 1){
+			List<double[]> foldResults = ThresholdSweep.crossValidate(distances, entailments, folds);
+			double sum = 0.0;
+			double squares = 0.0;
 			
-			for (JSONObject pair : annotated){
-				String entail = (String) pair.get("entailment");
-				String answer = (String) pair.get("answer");
+			for (int k=0; k < foldResults.size(); k++){
+				double[] fold = foldResults.get(k);
 				
-				if (entail.equalsIgnoreCase("yes")){
-					if (answer.equalsIgnoreCase("yes")){
-						tp += 1.0;
-					}
-					else{
-						fn += 1.0;
-					}
-				}
-				else{
-					if (answer.equalsIgnoreCase("yes")){
-						fp += 1.0;
-					}
-					else{
-						tn += 1.0;
-					}
-				}
+				report.add("Fold " + (k+1) + ": threshold " + (float) fold[0] + ", F1 " + String.format("%.2f", fold[1]));
+				sum += fold[1];
+				squares += fold[1] * fold[1];
 			}
 			
-			Double precision = acc.computePrecision(tp, fp);
-			Double recall = acc.computeRecall(tp, fn);
-			Double f1 = acc.computeF1(precision, recall);
-			
-			if (f1 > maxF1){
-				maxF1 = f1;
-				threshold = distance;
-			}
+			double mean = sum / folds;
+			double std = Math.sqrt(Math.max(0.0, squares / folds - mean * mean));
+			report.add(folds + "-fold F1: " + String.format("%.2f", mean) + " +/- " + String.format("%.2f", std));
 		}
 		
-		System.out.println("Best F1: " + String.format("%.2f", maxF1) + ", obtained with the threshold " + threshold);
+		ThresholdSweep sweep = new ThresholdSweep(distances, entailments);
+		float threshold = sweep.getBestThreshold();
+		
+		report.add("Best F1: " + String.format("%.2f", sweep.getBestF1()) + ", obtained with the threshold " + threshold);
+		
+		//Calibrate the pq-gram cutoffs of the screening mode against the decisions taken with the threshold
+		Configuration config = new Configuration(configFile);
+		String tolerance = config.params.get("tedscreeningtolerance");
+		float[] approximate = new float[data.size()];
+		boolean[] exact = new boolean[data.size()];
 		
-		//Write the learned threshold to the config file
-		writeThreshold (threshold);
+		for (int i=0; i < data.size(); i++){
+			approximate[i] = ted.computeApproximateDistance(texts.get(i), hyps.get(i));
+			exact[i] = distances[i] <= threshold;
+		}
+		
+		ScreeningCutoffs cutoffs = new ScreeningCutoffs(approximate, exact, (tolerance == null) ? 0.02 : Double.parseDouble(tolerance.trim()));
+		report.addAll(getScreeningReport(cutoffs, approximate, exact, entailments));
+		
+		for (String line : report){
+			System.out.println(line);
+		}
+		
+		//Write the learned parameters to the config file, and the training statistics to the report file, if any
+		Map<String, String> parameters = new LinkedHashMap<String, String>();
+		parameters.put("tedthreshold", String.valueOf(threshold));
+		parameters.put("tedpqlow", String.valueOf(cutoffs.getLow()));
+		parameters.put("tedpqhigh", String.valueOf(cutoffs.getHigh()));
+		
+		writeParameters (parameters);
+		writeTrainingReport (report);
+		
+		//Let the engine, if already built, use the new parameters
+		synchronized (Entailment.class){
+			if (engine != null){
+				engine.reloadTreeEditDistance();
+			}
+		}
 	}
 	
-	//Compute a single entailment
-	public String processPair (String text, String hyp, String kb){
-
-		String output = new String();
+	//Measure the screening mode on the training pairs: how many are decided by the pq-gram distance alone, how often
+	//it agrees with the exact decision, and the F1 scores of both
+	private List<String> getScreeningReport (ScreeningCutoffs cutoffs, float[] approximate, boolean[] exact, boolean[] entailments){
+		
+		List<String> report = new ArrayList<String>();
+		boolean[] screened = new boolean[exact.length];
+		int escalated = 0;
+		int agreements = 0;
+		
+		for (int i=0; i < exact.length; i++){
+			Boolean decision = cutoffs.decide(approximate[i]);
+			
+			escalated += (decision == null) ? 1 : 0;
+			screened[i] = (decision == null) ? exact[i] : decision;
+			agreements += (screened[i] == exact[i]) ? 1 : 0;
+		}
 		
-		//Decide which entailment model to use for the pair
-		ModelRouter router = new ModelRouter(th);
-		String model = router.chooseEntailmentModel(text, hyp);
+		report.add("Screening cutoffs: pq-gram distance <= " + cutoffs.getLow() + " is yes, >= " + cutoffs.getHigh() + " is no");
+		report.add("Screening escalates " + escalated + " of " + exact.length + " pairs to the exact distance, and agrees with it on "
+				+ agreements + " pairs");
+		report.add("F1 with the exact distance: " + String.format("%.2f", getF1(exact, entailments)) + ", with screening: " 
+				+ String.format("%.2f", getF1(screened, entailments)));
 		
-		//Check context information
-		EntailmentDecision decision = new ContextCheck(th).checkContext(text, hyp); 
+		return report;
+	}
+	
+	private Double getF1 (boolean[] answers, boolean[] entailments){
 		
-		if (model.equals("TreeEditDistance")){			
-			if (!decision.getDecision().equals("no")){ //No concluding decision, call TED
-				decision = new TreeEditDistance(configFile).computeEntailment(text, hyp);
+		Accuracy acc = new Accuracy();
+		Double tp = 0.0;
+		Double fp = 0.0;
+		Double fn = 0.0;
+		
+		for (int i=0; i < answers.length; i++){
+			if (entailments[i]){
+				tp += answers[i] ? 1.0 : 0.0;
+				fn += answers[i] ? 0.0 : 1.0;
 			}
 			else{
-				decision.setModel("TreeEditDistance");
+				fp += answers[i] ? 1.0 : 0.0;
 			}
 		}
-		else if (model.equals("GraphNavigation")){			
-			if (!decision.getDecision().equals("no")){ //No concluding decision, call GN
-				List<List<String>> pairs = getSourceTargetPairs(text, hyp);
-				decision = new GraphNavigation(th, kb, configFile).computeEntailment(pairs);
+		
+		return acc.computeF1(acc.computePrecision(tp, fp), acc.computeRecall(tp, fn));
+	}
+	
+	//Write the statistics of the last training to the file set by tedtrainreport in the configuration file
+	private void writeTrainingReport (List<String> report){
+		
+		String reportFile = new Configuration(configFile).params.get("tedtrainreport");
+		
+		if (reportFile == null){
+			return;
+		}
+		
+		try {
+	        FileWriter writer = new FileWriter(reportFile);
+	        for (String line : report){
+	        	writer.write(line + "\n");
+	        }
+	        writer.flush();
+	        writer.close();
+	        System.out.println("Training statistics written to " + reportFile + ".");
+	    }catch(IOException e){  
+			e.printStackTrace();
+		}
+	}
+	
+	//Get the engine of a knowledge base, building it the first time (or when the knowledge base changes) so that
+	//the models, the caches and the warmed-up code are kept from one call to the next
+	public static synchronized EntailmentEngine getEngine (String kb){
+		
+		if (engine == null || !engine.getKnowledgeBase().equals(kb)){
+			if (engine != null){
+				engine.saveCaches();
 			}
 			else{
-				decision.setModel("GraphNavigation");
+				//Keep the parsed sentences and the graph navigation results of the current engine when the process
+				//ends, with a single hook whatever the number of engines built
+				Runtime.getRuntime().addShutdownHook(new Thread(Entailment::saveCaches, "engine-caches"));
 			}
+			engine = new EntailmentEngine(th, kb, configFile, budget);
 		}
 		
-		output = "Using model '" + decision.getModel() + "'\n" + "Entailment: " + decision.getDecision();
+		return engine;
+	}
+	
+	private static synchronized void saveCaches (){
 		
-		if (!decision.getJustification().equals("null")){
-			output+= "\nJustification:\n" + decision.getJustification();
+		if (engine != null){
+			engine.saveCaches();
 		}
+	}
+	
+	//Compute a single entailment
+	public String processPair (String text, String hyp, String kb){
 		
-		return output;	
+		return processPair(text, hyp, kb, budget);
+	}
+	
+	//Compute a single entailment with specific graph navigation budgets
+	public String processPair (String text, String hyp, String kb, SearchBudget budget){
+
+		return getEngine(kb).processPair(text, hyp, budget);
 	}
 
 	//Process a whole dataset
@@ -333,9 +321,8 @@ public class Entailment {
 		List<JSONObject> data = dr.readTextDataset(inputfile);
 		List<JSONObject> results = new ArrayList<JSONObject>();
 		
-		TreeEditDistance ted = new TreeEditDistance(configFile);
-		GraphNavigation gn = new GraphNavigation(th, kb, configFile);
-		ModelRouter router = new ModelRouter(th);
+		EntailmentEngine engine = getEngine(kb);
+		SearchStats searchTotals = null;
 
 		//Process each pair in the dataset
 		for (JSONObject item : data){
@@ -348,29 +335,13 @@ public class Entailment {
 			System.out.println("H: " + hyp);
 			System.out.println();
 			
-			//Decide which entailment model to use for the pair
-			String model = router.chooseEntailmentModel(text, hyp);
+			//Annotate the sentences once, for the router, the context checks and the chosen model
+			SentenceAnnotation textAnnotation = new SentenceAnnotation(text, th);
+			SentenceAnnotation hypAnnotation = new SentenceAnnotation(hyp, th);
 			
-			//Check context information
-			EntailmentDecision decision = new ContextCheck(th).checkContext(text, hyp); 
-			
-			if (model.equals("TreeEditDistance")){			
-				if (!decision.getDecision().equals("no")){ //No concluding decision, call TED
-					decision = ted.computeEntailment(text, hyp);
-				}
-				else{
-					decision.setModel("TreeEditDistance");
-				}
-			}
-			else if (model.equals("GraphNavigation")){			
-				if (!decision.getDecision().equals("no")){ //No concluding decision, call GN
-					List<List<String>> pairs = getSourceTargetPairs(text, hyp);
-					decision = gn.computeEntailment(pairs);
-				}
-				else{
-					decision.setModel("GraphNavigation");
-				}
-			}
+			//Decide which entailment model to use for the pair, check the context and compute the entailment
+			String model = engine.chooseModel(textAnnotation, hypAnnotation);
+			EntailmentDecision decision = engine.computeEntailment(model, textAnnotation, hypAnnotation, budget);
 			
 			JSONObject result = (JSONObject) item.clone();
 			String[] justifLines = decision.getJustification().split("\n");
@@ -383,9 +354,19 @@ public class Entailment {
 			result.put("model", model);
 			result.put("answer", decision.getDecision());
 			result.put("justification", justifItems);
+			result.put("timelimited", decision.isTimeLimited());
+			
+			if (decision.getSearchStats() != null){
+				result.put("searchstats", new JSONObject(decision.getSearchStats().toMap()));
+				searchTotals = (searchTotals == null) ? new SearchStats() : searchTotals;
+				searchTotals.add(decision.getSearchStats());
+			}
 			results.add((JSONObject) result.clone());
 		}
 		
+		//Keep the parsed sentences and the graph navigation results for the next runs
+		engine.saveCaches();
+		
 		//Write results to file
 		DataWriter dw = new DataWriter();
 		dw.writeEntaimentResult(results, outputfile);
@@ -395,6 +376,17 @@ public class Entailment {
 
 		Accuracy acc = new Accuracy();
 		acc.printSummary(results);
+		
+		//Print the work done by the graph navigation searches over the whole dataset
+		if (searchTotals != null){
+			System.out.println("\nGraph navigation searches: " + searchTotals);
+		}
+		
+		//Print the time spent on each context check
+		System.out.println("\nContext checks:" + ContextCheck.getTimings());
+		
+		//Print how many word normalizations were answered by the memo table
+		System.out.println("\nNormalizations: " + th.getNormalizeHits() + " memoized, " + th.getNormalizeMisses() + " looked up");
 	}
 
 }
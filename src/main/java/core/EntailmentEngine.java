@@ -0,0 +1,286 @@
+package core;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+
+import data.DataReader;
+import data.EntailmentDecision;
+import models.ContextCheck;
+import models.GraphNavigation;
+import models.SearchBudget;
+import models.TreeEditDistance;
+import util.Configuration;
+import util.IndraCall;
+import util.SentenceAnnotation;
+import util.TextHandler;
+
+//Long-lived entailment engine: the router, the context checks and both entailment models are built once, warmed up
+//on the sample pairs bundled with the system, and then shared by every pair, which needs no initialization
+public class EntailmentEngine {
+	
+	private static final String warmupPairs = "/warmup_pairs.txt";
+	private final TextHandler th;
+	private final String configFile;
+	private final String kb;
+	private final SearchBudget budget;
+	private final ModelRouter router;
+	private final ContextCheck context;
+	private final GraphNavigation gn;
+	private volatile TreeEditDistance ted;
+	
+	public EntailmentEngine (TextHandler handler, String kb, String conf, SearchBudget searchBudget){
+		
+		//Entailment prints the errors of the text handler and goes on without it, so fail here instead of on the
+		//first pair
+		if (handler == null){
+			throw new IllegalStateException("the text handler could not be initialized (check wnpath in " + conf + ")");
+		}
+		
+		th = handler;
+		configFile = conf;
+		this.kb = kb;
+		budget = searchBudget;
+		router = new ModelRouter(th);
+		context = new ContextCheck(th, configFile);
+		ted = new TreeEditDistance(configFile);
+		gn = new GraphNavigation(th, kb, configFile);
+		
+		Configuration config = new Configuration(configFile);
+		
+		if (!"false".equals(config.params.get("warmup"))){
+			String timeout = config.params.get("warmuptimeout");
+			warmUp((timeout == null) ? 1000 : Long.parseLong(timeout.trim()));
+		}
+	}
+	
+	public String getKnowledgeBase (){
+		
+		return kb;
+	}
+	
+	//Graph navigation budgets used when a pair does not set its own
+	public SearchBudget getBudget (){
+		
+		return budget;
+	}
+	
+	//Run the bundled sample pairs through every stage so that the hot paths are compiled before the first real pair.
+	//Graph navigation searches are cut at the given time (in milliseconds) per source-target pair
+	public void warmUp (long timeout){
+		
+		InputStream input = getClass().getResourceAsStream(warmupPairs);
+		
+		if (input == null){
+			return;
+		}
+		
+		System.out.print("Warming up... ");
+		long start = System.currentTimeMillis();
+		SearchBudget warmupBudget = new SearchBudget(budget);
+		warmupBudget.setTimeout(timeout);
+		
+		List<JSONObject> pairs = new DataReader().readTextDataset(new BufferedReader(new InputStreamReader(input)));
+		
+		ted.setCacheTrees(false);
+		gn.setCachePaths(false);
+		
+		for (JSONObject pair : pairs){
+			String text = (String) pair.get("text");
+			String hyp = (String) pair.get("hypothesis");
+			
+			if (text != null && hyp != null){
+				SentenceAnnotation textAnnotation = new SentenceAnnotation(text, th);
+				SentenceAnnotation hypAnnotation = new SentenceAnnotation(hyp, th);
+				
+				//Both models, whatever the router would choose
+				context.checkContext(textAnnotation, hypAnnotation);
+				computeEntailment("TreeEditDistance", textAnnotation, hypAnnotation, warmupBudget);
+				computeEntailment("GraphNavigation", textAnnotation, hypAnnotation, warmupBudget);
+			}
+		}
+		
+		ted.setCacheTrees(true);
+		gn.setCachePaths(true);
+		System.out.println("Done (" + (System.currentTimeMillis() - start) + " ms).");
+	}
+	
+	//Reload the TED component, to use the parameters learned by a new training
+	public void reloadTreeEditDistance (){
+		
+		ted = new TreeEditDistance(configFile);
+	}
+	
+	//Write the parsed sentences and the graph navigation results to their cache files
+	public void saveCaches (){
+		
+		ted.saveCache();
+		gn.saveCache();
+	}
+	
+	//Decide which entailment model to use for the pair
+	public String chooseModel (SentenceAnnotation text, SentenceAnnotation hyp){
+		
+		return router.chooseEntailmentModel(text, hyp);
+	}
+	
+	//Check the context of the pair and, if it is not conclusive, compute the entailment with the given model
+	public EntailmentDecision computeEntailment (String model, SentenceAnnotation text, SentenceAnnotation hyp, SearchBudget searchBudget){
+		
+		EntailmentDecision decision = context.checkContext(text, hyp);
+		
+		if (model.equals("TreeEditDistance")){			
+			if (!decision.getDecision().equals("no")){ //No concluding decision, call TED
+				decision = ted.computeEntailment(text.getSentence(), hyp.getSentence());
+			}
+			else{
+				decision.setModel("TreeEditDistance");
+			}
+		}
+		else if (model.equals("GraphNavigation")){			
+			if (!decision.getDecision().equals("no")){ //No concluding decision, call GN
+				List<List<String>> pairs = getSourceTargetPairs(text, hyp, searchBudget);
+				decision = gn.computeEntailment(pairs, searchBudget);
+			}
+			else{
+				decision.setModel("GraphNavigation");
+			}
+		}
+		
+		return decision;
+	}
+	
+	//Compute a single entailment
+	public EntailmentDecision computeEntailment (String text, String hyp){
+		
+		return computeEntailment(text, hyp, budget);
+	}
+	
+	//Compute a single entailment with specific graph navigation budgets
+	public EntailmentDecision computeEntailment (String text, String hyp, SearchBudget searchBudget){
+		
+		//Annotate the sentences once, for the router, the context checks and the chosen model
+		SentenceAnnotation textAnnotation = new SentenceAnnotation(text, th);
+		SentenceAnnotation hypAnnotation = new SentenceAnnotation(hyp, th);
+		
+		return computeEntailment(chooseModel(textAnnotation, hypAnnotation), textAnnotation, hypAnnotation, searchBudget);
+	}
+	
+	//Compute a single entailment and describe the decision
+	public String processPair (String text, String hyp, SearchBudget searchBudget){
+		
+		EntailmentDecision decision = computeEntailment(text, hyp, searchBudget);
+		String output = "Using model '" + decision.getModel() + "'\n" + "Entailment: " + decision.getDecision();
+		
+		if (!decision.getJustification().equals("null")){
+			output+= "\nJustification:\n" + decision.getJustification();
+		}
+		
+		if (decision.isTimeLimited()){
+			output+= "\n(Search stopped at the time limit, best path found so far)";
+		}
+		
+		return output;	
+	}
+	
+	//Match individual words to the multi-word phrases that contain them, if any
+  	private List<String> matchPhrases (List<String> tokens, List<String> phrases){
+
+  		List<String> matched = new ArrayList<String>();
+
+  		for (String token : tokens){
+  			String word = token.split(";")[0];
+  			String pos = token.split(";")[1];
+  			
+  			for (int i=0; i < phrases.size(); i++){
+  				String phrase = phrases.get(i).split(";")[0];
+
+  				if (phrase.startsWith(th.normalize(word, pos)) || phrase.endsWith(th.normalize(word, pos))){
+  					String entry = phrases.get(i).split(";")[0] + ";" + pos;
+  					
+  					if (!matched.contains(entry)){
+  						matched.add(entry);
+  					}	
+  					break;
+  				}
+  			}
+  		}
+  		return matched;
+  	}
+  	
+  	//Identify the pairs of words (the source, coming from the text, and the target, coming from the 
+  	//hypothesis) to be sent as input to the Graph Navigation model
+  	@SuppressWarnings("rawtypes")
+	private List<List<String>> getSourceTargetPairs (SentenceAnnotation text, SentenceAnnotation hyp, SearchBudget budget){
+		
+		List<List<String>> pairs = new ArrayList<List<String>>();
+		List<List<String>> cleanedPair = th.cleanPair(text.getTokens(), hyp.getTokens());
+		
+		try{
+			List<String> textTokens = cleanedPair.get(0);
+			List<String> textChunks = text.getChunks();
+			List<String> textPhrases = matchPhrases(textTokens, textChunks);
+			
+			List<String> hypTokens = cleanedPair.get(1);
+			List<String> hypChunks = hyp.getChunks();
+			List<String> hypPhrases = matchPhrases(hypTokens, hypChunks);
+			
+			//Find the best pairs
+			List<String> allPairs = new ArrayList<String>();
+			
+			//Combine all words from text to all words from hypothesis
+			for (String textWord : textPhrases){
+				String tWord = textWord.split(";")[0];
+				String tPos = textWord.split(";")[1];
+	
+				for (String hypWord : hypPhrases){
+					String hWord = hypWord.split(";")[0];
+					String hPos = hypWord.split(";")[1];
+	
+					List<Map> scores = IndraCall.getResponse(tWord, Arrays.asList(hWord));
+	
+					for (Map score : scores){
+						String item = score.get("t1") +  "#" + tPos + ";" + score.get("t2") + "#" + hPos + ";" + score.get("score");
+						allPairs.add(item);
+					}
+				}
+			}
+					
+			//Sort combined pairs according to their semantic similarity, using insertion sort
+			String temp;
+	
+			for (int i=1; i < allPairs.size(); i++){			
+				for (int j = i ; j > 0 ; j--){
+					Double score1 = Math.abs(Double.parseDouble(allPairs.get(j).split(";")[2]));
+					Double score2 = Math.abs(Double.parseDouble(allPairs.get(j-1).split(";")[2]));
+	
+					if (score1 > score2){ //descending order
+						temp = allPairs.get(j);
+						allPairs.set(j, allPairs.get(j-1));
+						allPairs.set(j-1, temp);
+					}
+				}
+			}
+	
+			//Get best pairs
+			int maxPairs = Math.min(allPairs.size(), budget.getMaxEntries());
+			for (int k=0; k < maxPairs; k++){
+				String item = allPairs.get(k);
+				List<String> pair = Arrays.asList(item.split(";")[0], item.split(";")[1]);
+				pairs.add(pair);
+			}
+		}
+		catch (Exception e){
+			e.printStackTrace();
+		}
+		
+		return pairs;
+	}
+
+}
@@ -0,0 +1,505 @@
+package core;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import data.EntailmentDecision;
+import models.SearchBudget;
+import util.Configuration;
+
+//Entailment service on the JDK HTTP server. All requests share one engine, which is built in the background: /health
+//answers as soon as the server is up, and /ready and the entailment endpoints once the knowledge base is loaded. If
+//the engine cannot be built, /health and /ready report the failure. Pairs are computed by a fixed number of workers
+//behind a bounded queue; when the queue is full, requests are rejected right away with 503 instead of piling up, and
+//a request that is not answered in time (waiting included) is cancelled with 504. Connections are also handled by a
+//fixed number of threads, enough for every request admitted to the queue plus the health checks
+public class EntailmentServer {
+
+	private final HttpServer server;
+	private final ExecutorService connections;
+	private final ThreadPoolExecutor workers;
+	private final int maxBatch;
+	private final long pairTimeout;
+	private final long maxBody;
+	private volatile EntailmentEngine engine;
+	private volatile String loadError;
+
+	//Request body that fails once it goes over the size limit, whether the client sent its length or not
+	private static final class LimitedInputStream extends FilterInputStream {
+
+		private long remaining;
+
+		private LimitedInputStream (InputStream in, long limit){
+
+			super(in);
+			remaining = limit;
+		}
+
+		private void count (long bytes) throws IOException{
+
+			remaining -= bytes;
+
+			if (remaining < 0){
+				throw new BodyTooLargeException();
+			}
+		}
+
+		@Override
+		public int read () throws IOException{
+
+			int b = super.read();
+
+			if (b >= 0){
+				count(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read (byte[] b, int off, int len) throws IOException{
+
+			int read = super.read(b, off, len);
+
+			if (read > 0){
+				count(read);
+			}
+			return read;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class BodyTooLargeException extends IOException {
+	}
+
+	public EntailmentServer (String kb, String configFile){
+
+		Configuration config = new Configuration(configFile);
+		int port = getParam(config, "serverport", 8080);
+		int threads = getParam(config, "serverthreads", Runtime.getRuntime().availableProcessors());
+		int queueSize = getParam(config, "serverqueue", 32);
+
+		maxBatch = getParam(config, "servermaxbatch", 100);
+		maxBody = getParam(config, "servermaxbody", 1 << 20);
+		pairTimeout = getParam(config, "servertimeout", 60000);
+		workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize));
+		connections = Executors.newFixedThreadPool(threads + queueSize + 2);
+
+		try{
+			server = HttpServer.create(new InetSocketAddress(port), 0);
+		}
+		catch (IOException e){
+			throw new IllegalStateException("cannot open port " + port, e);
+		}
+
+		server.createContext("/health", exchange -> {
+			if (loadError != null){
+				send(exchange, 503, failure());
+			}
+			else{
+				send(exchange, 200, status("up"));
+			}
+		});
+		server.createContext("/ready", exchange -> {
+			if (loadError != null){
+				send(exchange, 503, failure());
+			}
+			else if (engine == null){
+				send(exchange, 503, status("loading"));
+			}
+			else{
+				send(exchange, 200, status("ready"));
+			}
+		});
+		server.createContext("/entail", this::entail);
+		server.createContext("/entail/batch", this::entailBatch);
+		server.setExecutor(connections);
+
+		//Load the knowledge base (and warm up the engine) without holding the health checks
+		Thread loader = new Thread(() -> {
+			try{
+				new Entailment(kb, configFile);
+				engine = Entailment.getEngine(kb);
+				System.out.println("Ready on port " + port + ".");
+			}
+			catch (RuntimeException | Error e){
+				e.printStackTrace();
+				loadError = String.valueOf(e);
+				System.out.println("ERROR: the engine could not be built, the service will not get ready.");
+			}
+		}, "engine-loader");
+
+		loader.setDaemon(true);
+		loader.start();
+	}
+
+	private static int getParam (Configuration config, String key, int defaultValue){
+
+		String value = config.params.get(key);
+
+		return (value == null) ? defaultValue : Integer.parseInt(value.trim());
+	}
+
+	public void start (){
+
+		server.start();
+	}
+
+	public void stop (){
+
+		server.stop(0);
+		workers.shutdown();
+		connections.shutdown();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject status (String status){
+
+		JSONObject json = new JSONObject();
+		json.put("status", status);
+
+		return json;
+	}
+
+	@SuppressWarnings("unchecked")
+	private JSONObject failure (){
+
+		JSONObject json = status("failed");
+		json.put("error", loadError);
+
+		return json;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject error (String message){
+
+		JSONObject json = new JSONObject();
+		json.put("error", message);
+
+		return json;
+	}
+
+	private static void send (HttpExchange exchange, int code, JSONObject json) throws IOException{
+
+		byte[] body = json.toJSONString().getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(code, body.length);
+
+		try (OutputStream out = exchange.getResponseBody()){
+			out.write(body);
+		}
+	}
+
+	//Describe a decision as JSON, with the justification split in lines as in the dataset results
+	@SuppressWarnings("unchecked")
+	private static JSONObject toJSON (EntailmentDecision decision){
+
+		JSONObject json = new JSONObject();
+
+		json.put("model", decision.getModel());
+		json.put("entailment", decision.getDecision());
+		json.put("justification", new ArrayList<String>(Arrays.asList(decision.getJustification().split("\n"))));
+		json.put("timelimited", decision.isTimeLimited());
+
+		return json;
+	}
+
+	//Read a pair given as {"text": ..., "hypothesis": ...}, or return null if it is not one
+	private static String[] readPair (Object item){
+
+		if (!(item instanceof JSONObject)){
+			return null;
+		}
+
+		Object text = ((JSONObject) item).get("text");
+		Object hyp = ((JSONObject) item).get("hypothesis");
+
+		if (!(text instanceof String) || !(hyp instanceof String)){
+			return null;
+		}
+
+		return new String[]{(String) text, (String) hyp};
+	}
+
+	//Read an optional whole number of a budget, at least the given minimum
+	private static Long getBudgetValue (JSONObject fields, String name, long minimum){
+
+		Object value = fields.get(name);
+
+		if (value == null){
+			return null;
+		}
+		if (!(value instanceof Long) || (Long) value < minimum || (Long) value > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("budget field " + name + " must be a whole number from " + minimum);
+		}
+		return (Long) value;
+	}
+
+	//Read the graph navigation budgets of a pair, given as an optional "budget" object with any of maxentries, maxdepth,
+	//maxpaths, searchlimit and timeout (in milliseconds, 0 for no limit); the fields not given keep the engine's values
+	private SearchBudget readBudget (Object item){
+
+		Object fields = ((JSONObject) item).get("budget");
+		SearchBudget budget = new SearchBudget(engine.getBudget());
+
+		if (fields == null){
+			return budget;
+		}
+		if (!(fields instanceof JSONObject)){
+			throw new IllegalArgumentException("budget must be an object");
+		}
+
+		JSONObject values = (JSONObject) fields;
+		Long value;
+
+		if ((value = getBudgetValue(values, "maxentries", 1)) != null){
+			budget.setMaxEntries(value.intValue());
+		}
+		if ((value = getBudgetValue(values, "maxdepth", 1)) != null){
+			budget.setMaxDepth(value.intValue());
+		}
+		if ((value = getBudgetValue(values, "maxpaths", 1)) != null){
+			budget.setMaxPaths(value.intValue());
+		}
+		if ((value = getBudgetValue(values, "searchlimit", 1)) != null){
+			budget.setSearchLimit(value.intValue());
+		}
+		if ((value = getBudgetValue(values, "timeout", 0)) != null){
+			budget.setTimeout(value);
+		}
+		return budget;
+	}
+
+	//Check the method and the engine, and parse the body of a request, or answer it and return null
+	private Object readRequest (HttpExchange exchange) throws IOException{
+
+		if (!exchange.getRequestMethod().equals("POST")){
+			exchange.getResponseHeaders().set("Allow", "POST");
+			send(exchange, 405, error("use POST"));
+			return null;
+		}
+
+		if (loadError != null){
+			send(exchange, 503, error("the engine could not be built: " + loadError));
+			return null;
+		}
+
+		if (engine == null){
+			send(exchange, 503, error("the knowledge base is still loading"));
+			return null;
+		}
+
+		//Refuse large bodies before reading them when their length is known, and stop reading them otherwise
+		String length = exchange.getRequestHeaders().getFirst("Content-Length");
+
+		try{
+			if (length != null && Long.parseLong(length.trim()) > maxBody){
+				send(exchange, 413, error("at most " + maxBody + " bytes per request"));
+				return null;
+			}
+		}
+		catch (NumberFormatException e){
+			send(exchange, 400, error("invalid Content-Length"));
+			return null;
+		}
+
+		Object request = null;
+
+		try (Reader reader = new InputStreamReader(new LimitedInputStream(exchange.getRequestBody(), maxBody), StandardCharsets.UTF_8)){
+			request = new JSONParser().parse(reader);
+		}
+		catch (ParseException e){
+			request = null;
+		}
+		catch (BodyTooLargeException e){
+			send(exchange, 413, error("at most " + maxBody + " bytes per request"));
+			return null;
+		}
+
+		if (request == null){
+			send(exchange, 400, error("invalid JSON"));
+		}
+		return request;
+	}
+
+	//Time allowed to answer a request of some pairs: with a search timeout, the source-target pairs of a pair may be
+	//searched one after the other, plus some time for the parsing and the context checks; without it, the time per
+	//pair set by servertimeout
+	private long getRequestTimeout (SearchBudget budget, int pairs){
+
+		long perPair = (budget.getTimeout() > 0) ? budget.getTimeout() * budget.getMaxEntries() + 5000 : pairTimeout;
+
+		return Math.min(perPair, TimeUnit.DAYS.toMillis(1)) * Math.max(1, pairs);
+	}
+
+	//Run a request on the workers and send its result, 503 if the queue is full, or 504 if it takes longer than the
+	//given time (in milliseconds), in which case it is cancelled
+	private void submit (HttpExchange exchange, Callable<JSONObject> task, long timeout) throws IOException{
+
+		Future<JSONObject> result;
+
+		try{
+			result = workers.submit(task);
+		}
+		catch (RejectedExecutionException e){
+			exchange.getResponseHeaders().set("Retry-After", "1");
+			send(exchange, 503, error("too many requests"));
+			return;
+		}
+
+		try{
+			send(exchange, 200, result.get(timeout, TimeUnit.MILLISECONDS));
+		}
+		catch (TimeoutException e){
+			result.cancel(true);
+			send(exchange, 504, error("no answer after " + timeout + " ms"));
+		}
+		catch (InterruptedException e){
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			send(exchange, 503, error("interrupted"));
+		}
+		catch (ExecutionException e){
+			e.printStackTrace();
+			send(exchange, 500, error(String.valueOf(e.getCause())));
+		}
+	}
+
+	//POST /entail {"text": ..., "hypothesis": ..., "budget": {...}}, the budget being optional
+	private void entail (HttpExchange exchange) throws IOException{
+
+		//The context also receives the paths under /entail that are not handled elsewhere
+		if (!exchange.getRequestURI().getPath().equals("/entail")){
+			send(exchange, 404, error("not found"));
+			return;
+		}
+
+		Object request = readRequest(exchange);
+
+		if (request == null){
+			return;
+		}
+
+		String[] pair = readPair(request);
+
+		if (pair == null){
+			send(exchange, 400, error("expected {\"text\": ..., \"hypothesis\": ...}"));
+			return;
+		}
+
+		SearchBudget budget;
+
+		try{
+			budget = readBudget(request);
+		}
+		catch (IllegalArgumentException e){
+			send(exchange, 400, error(e.getMessage()));
+			return;
+		}
+
+		submit(exchange, () -> toJSON(engine.computeEntailment(pair[0], pair[1], budget)), getRequestTimeout(budget, 1));
+	}
+
+	//POST /entail/batch [{"id": ..., "text": ..., "hypothesis": ..., "budget": {...}}, ...], the ids and budgets being
+	//optional, computed in order as a single task
+	@SuppressWarnings("unchecked")
+	private void entailBatch (HttpExchange exchange) throws IOException{
+
+		Object request = readRequest(exchange);
+
+		if (request == null){
+			return;
+		}
+
+		if (!(request instanceof JSONArray)){
+			send(exchange, 400, error("expected a list of pairs"));
+			return;
+		}
+
+		if (((JSONArray) request).size() > maxBatch){
+			send(exchange, 413, error("at most " + maxBatch + " pairs per batch"));
+			return;
+		}
+
+		List<String[]> pairs = new ArrayList<String[]>();
+		List<Object> ids = new ArrayList<Object>();
+		List<SearchBudget> budgets = new ArrayList<SearchBudget>();
+		long timeout = 0;
+
+		for (Object item : (JSONArray) request){
+			String[] pair = readPair(item);
+
+			if (pair == null){
+				send(exchange, 400, error("expected {\"text\": ..., \"hypothesis\": ...} in pair " + (pairs.size() + 1)));
+				return;
+			}
+
+			try{
+				budgets.add(readBudget(item));
+			}
+			catch (IllegalArgumentException e){
+				send(exchange, 400, error(e.getMessage() + " in pair " + (pairs.size() + 1)));
+				return;
+			}
+
+			pairs.add(pair);
+			ids.add(((JSONObject) item).get("id"));
+			timeout += getRequestTimeout(budgets.get(budgets.size() - 1), 1);
+		}
+
+		submit(exchange, () -> {
+			JSONArray results = new JSONArray();
+
+			for (int i=0; i < pairs.size(); i++){
+				JSONObject result = toJSON(engine.computeEntailment(pairs.get(i)[0], pairs.get(i)[1], budgets.get(i)));
+
+				if (ids.get(i) != null){
+					result.put("id", ids.get(i));
+				}
+				results.add(result);
+			}
+
+			JSONObject json = new JSONObject();
+			json.put("results", results);
+
+			return json;
+		}, Math.max(timeout, getRequestTimeout(engine.getBudget(), 1)));
+	}
+
+	//Start the service: <knowledge base> <config file>
+	public static void main (String[] args){
+
+		EntailmentServer service = new EntailmentServer(args[0], args[1]);
+
+		service.start();
+		System.out.println("Listening, loading the knowledge base...");
+	}
+
+}
@@ -1,12 +1,9 @@
 package core;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.Predicate;
-
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
+import util.SentenceAnnotation;
 import util.TextHandler;
 
 public class ModelRouter {
@@ -24,65 +21,33 @@ public class ModelRouter {
 		th = handler;	
 	}	
 	
-	//Check whether there is no overlap at all between the text and the hypothesis
-  	private boolean nullOverlap (String text, String hyp){
-
-  		boolean isNull = false;
-
-  		try {	
-  			List<String> textTokens = th.tokenize(text);
-  			List<String> hypTokens = th.tokenize(hyp);
-  			List<String> overlapTokens = new ArrayList<String>();
-
-  			//Remove stop words from the text and hypothesis
-  			Predicate<String> isStopWord = s -> th.isStopWord(s.split(";")[0]);
-  			textTokens.removeIf(isStopWord);
-  			hypTokens.removeIf(isStopWord);
-
-  			//Compute overlap
-  			List<String> textWords = new ArrayList<String>();
-  			textTokens.stream().forEach((str) -> {textWords.add(str.split(";")[0]);});
-
-  			for (String target : hypTokens){
-  				String hypWord = target.split(";")[0];
-  				if (textWords.contains(hypWord)){
-  					overlapTokens.add(hypWord);
-  				}
-  			}
-
-  			if (overlapTokens.isEmpty()){
-  				isNull = true;
-  			}
-  		}
-  		catch (Exception e){
-  			e.printStackTrace();
-  		}
+	//Check whether there is no overlap at all between the content words of the text and the hypothesis
+  	private boolean nullOverlap (SentenceAnnotation text, SentenceAnnotation hyp){
 
-  		return isNull;
+  		return !SentenceAnnotation.intersects(text.getContentSet(), hyp.getContentSet());
   	}
 		
 	//Pre-process the text and hypothesis to decide what entailment model should be used
 	public String chooseEntailmentModel (String text, String hyp){
 
-		String model = new String();
+		return chooseEntailmentModel(new SentenceAnnotation(text, th), new SentenceAnnotation(hyp, th));
+	}
+	
+	//Decide the entailment model from the lemmas of the text and the hypothesis. Graph navigation needs content
+	//words left on both sides once the words they share are removed; otherwise tree edit distance is used
+	public String chooseEntailmentModel (SentenceAnnotation text, SentenceAnnotation hyp){
+
 		boolean empty = false;
 		
 		if (nullOverlap(text, hyp)){
 			empty = true;
 		}
-		else{
-			List<List<String>> cleanedPair = th.cleanPair(text, hyp);
-			List<String> textTokens = cleanedPair.get(0);
-			List<String> hypTokens = cleanedPair.get(1);
-	
-			if (textTokens.isEmpty() || hypTokens.isEmpty()){
-				empty = true;
-			}
-		}	
-
-		model = empty ? editDist : graphNav;
+		else if (!SentenceAnnotation.exceeds(hyp.getContentSet(), text.getWordSet()) ||
+				!SentenceAnnotation.exceeds(text.getContentSet(), hyp.getWordSet())){
+			empty = true;
+		}
 
-		return model;
+		return empty ? editDist : graphNav;
 	}
 	
 }
@@ -5,6 +5,8 @@ public class EntailmentDecision {
 	private String model;
 	private String decision;
 	private String justification;
+	private boolean timeLimited = false;
+	private SearchStats searchStats;
 	
 	public void setModel (String m){
 		
@@ -35,5 +37,27 @@ public class EntailmentDecision {
 	
 		return justification;
 	}
+	
+	//Whether the decision was taken with the results found before the search deadline
+	public void setTimeLimited (boolean t){
+		
+		timeLimited = t;
+	}
+	
+	public boolean isTimeLimited (){
+		
+		return timeLimited;
+	}
+	
+	//Counters of the graph navigation searches behind the decision, or null if no search was run
+	public void setSearchStats (SearchStats s){
+		
+		searchStats = s;
+	}
+	
+	public SearchStats getSearchStats (){
+		
+		return searchStats;
+	}
 
 }
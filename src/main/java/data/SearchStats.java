@@ -0,0 +1,186 @@
+package data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Counters of the work done by graph navigation searches. Each search fills its own counters, which are then added up
+//for the whole entailment pair and, in dataset mode, for the whole dataset
+public class SearchStats {
+
+	private long searches = 0;
+	private long cachedSearches = 0;
+	private long nodesExpanded = 0;
+	private long prunedPaths = 0;
+	private long maxFrontier = 0;
+	private long synsetLookups = 0;
+	private long roleQueries = 0;
+	private long relatednessCalls = 0;
+	private long candidatesScored = 0;
+	private long splitCalls = 0;
+	private long pathsFound = 0;
+	private long budgetHits = 0;
+	private long graphTime = 0;
+	private long relatednessTime = 0;
+	private long splitTime = 0;
+	private long searchTime = 0;
+	private long justificationTime = 0;
+
+	public void countSearch (){
+
+		searches++;
+	}
+
+	public void countCachedSearch (){
+
+		cachedSearches++;
+	}
+
+	public void countNodeExpanded (){
+
+		nodesExpanded++;
+	}
+
+	//Count a path skipped because it is deeper than the best path found by any search
+	public void countPrunedPath (){
+
+		prunedPaths++;
+	}
+
+	public void updateFrontier (int size){
+
+		maxFrontier = Math.max(maxFrontier, size);
+	}
+
+	//Count a synset lookup in the graph that started at the given time (in nanoseconds)
+	public void countSynsetLookup (long start){
+
+		synsetLookups++;
+		graphTime += System.nanoTime() - start;
+	}
+
+	//Count a role query in the graph that started at the given time
+	public void countRoleQuery (long start){
+
+		roleQueries++;
+		graphTime += System.nanoTime() - start;
+	}
+
+	//Count a call to the relatedness service scoring some candidates
+	public void countRelatednessCall (int candidates, long start){
+
+		relatednessCalls++;
+		candidatesScored += candidates;
+		relatednessTime += System.nanoTime() - start;
+	}
+
+	public void countSplitCall (long start){
+
+		splitCalls++;
+		splitTime += System.nanoTime() - start;
+	}
+
+	public void countPathsFound (int paths){
+
+		pathsFound += paths;
+	}
+
+	//Count a search stopped by its budget: the search limit, the max number of paths or the deadline
+	public void countBudgetHit (){
+
+		budgetHits++;
+	}
+
+	public void addSearchTime (long start){
+
+		searchTime += System.nanoTime() - start;
+	}
+
+	public void addJustificationTime (long start){
+
+		justificationTime += System.nanoTime() - start;
+	}
+
+	public long getSearches (){
+
+		return searches;
+	}
+
+	public long getNodesExpanded (){
+
+		return nodesExpanded;
+	}
+
+	public long getMaxFrontier (){
+
+		return maxFrontier;
+	}
+
+	public long getPathsFound (){
+
+		return pathsFound;
+	}
+
+	public long getBudgetHits (){
+
+		return budgetHits;
+	}
+
+	//Add up the counters of another search. The frontier size is the largest of both
+	public void add (SearchStats stats){
+
+		if (stats == null){
+			return;
+		}
+
+		searches += stats.searches;
+		cachedSearches += stats.cachedSearches;
+		nodesExpanded += stats.nodesExpanded;
+		prunedPaths += stats.prunedPaths;
+		maxFrontier = Math.max(maxFrontier, stats.maxFrontier);
+		synsetLookups += stats.synsetLookups;
+		roleQueries += stats.roleQueries;
+		relatednessCalls += stats.relatednessCalls;
+		candidatesScored += stats.candidatesScored;
+		splitCalls += stats.splitCalls;
+		pathsFound += stats.pathsFound;
+		budgetHits += stats.budgetHits;
+		graphTime += stats.graphTime;
+		relatednessTime += stats.relatednessTime;
+		splitTime += stats.splitTime;
+		searchTime += stats.searchTime;
+		justificationTime += stats.justificationTime;
+	}
+
+	//List the counters by name, with times in milliseconds
+	public Map<String, Long> toMap (){
+
+		Map<String, Long> map = new LinkedHashMap<String, Long>();
+
+		map.put("searches", searches);
+		map.put("cached_searches", cachedSearches);
+		map.put("nodes_expanded", nodesExpanded);
+		map.put("pruned_paths", prunedPaths);
+		map.put("max_frontier", maxFrontier);
+		map.put("synset_lookups", synsetLookups);
+		map.put("role_queries", roleQueries);
+		map.put("relatedness_calls", relatednessCalls);
+		map.put("candidates_scored", candidatesScored);
+		map.put("split_calls", splitCalls);
+		map.put("paths_found", pathsFound);
+		map.put("budget_hits", budgetHits);
+		map.put("graph_ms", graphTime / 1000000);
+		map.put("relatedness_ms", relatednessTime / 1000000);
+		map.put("split_ms", splitTime / 1000000);
+		map.put("search_ms", searchTime / 1000000);
+		map.put("justification_ms", justificationTime / 1000000);
+
+		return map;
+	}
+
+	@Override
+	public String toString (){
+
+		return toMap().toString();
+	}
+
+}
@@ -0,0 +1,77 @@
+package eval;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//Calibrate the cutoffs of an approximate distance against the decisions taken with the exact one. Pairs at or under
+//the low cutoff are answered yes and pairs at or over the high cutoff are answered no, without the exact distance;
+//each cutoff is pushed as far as possible while it disagrees with the exact decision on at most a given fraction of
+//the pairs it decides
+public class ScreeningCutoffs {
+
+	private float low = -1;
+	private float high = 2;
+
+	public ScreeningCutoffs (float[] approximate, boolean[] exact, double tolerance){
+
+		int n = approximate.length;
+		List<Integer> order = new ArrayList<Integer>(n);
+
+		for (int i=0; i < n; i++){
+			order.add(i);
+		}
+		Collections.sort(order, (a, b) -> Float.compare(approximate[a], approximate[b]));
+
+		//Low cutoff: the longest prefix of the sorted pairs, ending at a distinct value, with few exact "no"
+		int errors = 0;
+		int lowEnd = -1;
+
+		for (int i=0; i < n; i++){
+			errors += exact[order.get(i)] ? 0 : 1;
+
+			boolean lastOfValue = (i == n-1) || approximate[order.get(i+1)] != approximate[order.get(i)];
+
+			if (lastOfValue && errors <= tolerance * (i + 1)){
+				lowEnd = i;
+				low = approximate[order.get(i)];
+			}
+		}
+
+		//High cutoff: the longest suffix, starting at a distinct value, with few exact "yes", not overlapping the prefix
+		errors = 0;
+
+		for (int i=n-1; i > lowEnd; i--){
+			errors += exact[order.get(i)] ? 1 : 0;
+
+			boolean firstOfValue = (i == 0) || approximate[order.get(i-1)] != approximate[order.get(i)];
+
+			if (firstOfValue && errors <= tolerance * (n - i)){
+				high = approximate[order.get(i)];
+			}
+		}
+	}
+
+	public float getLow (){
+
+		return low;
+	}
+
+	public float getHigh (){
+
+		return high;
+	}
+
+	//Decide a pair with the approximate distance: true or false, or null if it needs the exact distance
+	public Boolean decide (float approximate){
+
+		if (approximate <= low){
+			return true;
+		}
+		if (approximate >= high){
+			return false;
+		}
+		return null;
+	}
+
+}
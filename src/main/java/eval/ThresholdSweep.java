@@ -0,0 +1,151 @@
+package eval;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+//Learn the distance threshold under which a pair is labeled as an entailment. The pairs are sorted by distance once,
+//and the F1 score of every candidate threshold is computed in a single cumulative pass
+public class ThresholdSweep {
+
+	private float[] distances;
+	private boolean[] entailments;
+	private float bestThreshold = 0;
+	private Double bestF1 = 0.0;
+
+	//Sort the pairs by distance and find the best threshold among the distinct distances. A pair is labeled as an
+	//entailment if its distance is strictly lower than the threshold; on ties, the smallest threshold is kept
+	public ThresholdSweep (float[] dists, boolean[] entails){
+
+		int n = dists.length;
+		List<Integer> order = new ArrayList<Integer>(n);
+
+		for (int i=0; i < n; i++){
+			order.add(i);
+		}
+		Collections.sort(order, (a, b) -> Float.compare(dists[a], dists[b]));
+
+		distances = new float[n];
+		entailments = new boolean[n];
+		int positives = 0;
+
+		for (int i=0; i < n; i++){
+			distances[i] = dists[order.get(i)];
+			entailments[i] = entails[order.get(i)];
+			positives += entailments[i] ? 1 : 0;
+		}
+
+		sweep(positives);
+	}
+
+	//The pairs before the first occurrence of each distance are the ones labeled as entailments with that threshold
+	private void sweep (int positives){
+
+		Accuracy acc = new Accuracy();
+		double tp = 0.0;
+		double fp = 0.0;
+
+		for (int i=0; i < distances.length; i++){
+			if (i == 0 || distances[i] != distances[i-1]){
+				Double precision = acc.computePrecision(tp, fp);
+				Double recall = acc.computeRecall(tp, positives - tp);
+				Double f1 = acc.computeF1(precision, recall);
+
+				if (f1 > bestF1){ //NaN never wins
+					bestF1 = f1;
+					bestThreshold = distances[i];
+				}
+			}
+
+			if (entailments[i]){
+				tp += 1.0;
+			}
+			else{
+				fp += 1.0;
+			}
+		}
+	}
+
+	public float getBestThreshold (){
+
+		return bestThreshold;
+	}
+
+	public Double getBestF1 (){
+
+		return bestF1;
+	}
+
+	//F1 score obtained on a set of pairs with a given threshold
+	public static Double computeF1 (float[] dists, boolean[] entails, float threshold){
+
+		Accuracy acc = new Accuracy();
+		double tp = 0.0;
+		double fp = 0.0;
+		double fn = 0.0;
+
+		for (int i=0; i < dists.length; i++){
+			boolean answer = dists[i] < threshold;
+
+			if (entails[i]){
+				tp += answer ? 1.0 : 0.0;
+				fn += answer ? 0.0 : 1.0;
+			}
+			else{
+				fp += answer ? 1.0 : 0.0;
+			}
+		}
+
+		return acc.computeF1(acc.computePrecision(tp, fp), acc.computeRecall(tp, fn));
+	}
+
+	//Run a k-fold cross-validation: the threshold is learned on k-1 folds and scored on the remaining one. The pairs
+	//are assigned to the folds in a fixed random order, so that runs can be repeated. Returns, for each fold, its
+	//threshold and its F1 score
+	public static List<double[]> crossValidate (float[] dists, boolean[] entails, int folds){
+
+		List<double[]> results = new ArrayList<double[]>();
+		List<Integer> order = new ArrayList<Integer>();
+
+		for (int i=0; i < dists.length; i++){
+			order.add(i);
+		}
+		Collections.shuffle(order, new Random(0));
+
+		for (int fold=0; fold < folds; fold++){
+			int testSize = 0;
+
+			for (int i=0; i < order.size(); i++){
+				testSize += (i % folds == fold) ? 1 : 0;
+			}
+
+			float[] trainDists = new float[dists.length - testSize];
+			boolean[] trainEntails = new boolean[dists.length - testSize];
+			float[] testDists = new float[testSize];
+			boolean[] testEntails = new boolean[testSize];
+			int train = 0;
+			int test = 0;
+
+			for (int i=0; i < order.size(); i++){
+				int index = order.get(i);
+
+				if (i % folds == fold){
+					testDists[test] = dists[index];
+					testEntails[test++] = entails[index];
+				}
+				else{
+					trainDists[train] = dists[index];
+					trainEntails[train++] = entails[index];
+				}
+			}
+
+			ThresholdSweep sweep = new ThresholdSweep(trainDists, trainEntails);
+			float threshold = sweep.getBestThreshold();
+
+			results.add(new double[]{threshold, computeF1(testDists, testEntails, threshold)});
+		}
+		return results;
+	}
+
+}
@@ -14,6 +14,8 @@ import org.apache.jena.query.QueryFactory;
 import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.ResIterator;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.rdf.model.impl.ResourceImpl;
@@ -228,4 +230,60 @@ public class DefinitionGraph {
 		}
 		return tuples;
 	}
+	
+	//List every role of every noun and verb definition in the graph, including the supertypes themselves
+	public List<RoleReference> getRoleReferences (){
+		
+		List<RoleReference> references = new ArrayList<RoleReference>();
+		ResIterator synsets = m.listSubjectsWithProperty(RDFS.label);
+		
+		while (synsets.hasNext()){
+			Resource synset = synsets.next();
+			
+			if (synset.getURI() == null){
+				continue;
+			}
+			
+			String nsp = getResourceNamespace(synset);
+			String pos = nsp.equals(Nnsp) ? "NN" : (nsp.equals(Vnsp) ? "VB" : null);
+			
+			if (pos == null){
+				continue;
+			}
+			
+			StmtIterator spts = synset.listProperties(m.getProperty(sptProp));
+			while (spts.hasNext()){
+				String supertype = getResourceName((Resource) spts.next().getObject());
+				references.add(new RoleReference(synset, pos, supertype, supertype.replaceAll("_", " "), "has_supertype"));
+			}
+			
+			StmtIterator it = synset.listProperties(RDF.type);
+			while (it.hasNext()){
+				RDFNode node = it.next().getObject();
+				
+				if (!node.isResource() || !((Resource) node).hasProperty(RDF.subject)){
+					continue;
+				}
+				
+				Resource roleStmt = (Resource) node;
+				String supertype = getResourceName((Resource) roleStmt.getProperty(RDF.subject).getObject());
+				Resource predicate = (Resource) roleStmt.getProperty(RDF.predicate).getObject();
+				RDFNode object = roleStmt.getProperty(RDF.object).getObject();
+				
+				if (object.isLiteral()){
+					references.add(new RoleReference(synset, pos, supertype, object.toString(), getResourceName(predicate)));
+				}
+				else{
+					Resource objStmt = (Resource) object;
+					String reifSubject = getResourceName((Resource) objStmt.getProperty(RDF.subject).getObject()).replaceAll("_", " ");
+					String reifObject = objStmt.getProperty(RDF.object).getObject().toString();
+					Resource reifPredicate = (Resource) objStmt.getProperty(RDF.predicate).getObject();
+					
+					references.add(new RoleReference(synset, pos, supertype, reifSubject, getResourceName(predicate)));
+					references.add(new RoleReference(synset, pos, supertype, reifObject, getResourceName(reifPredicate)));
+				}
+			}
+		}
+		return references;
+	}
 }
@@ -0,0 +1,175 @@
+package graph;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import util.Configuration;
+import util.TextHandler;
+
+public class HeadWordCandidates {
+
+	private static final String header = "#graph";
+	private Map<String, List<String>> candidates = new HashMap<String, List<String>>();
+
+	//Get the file where the candidates of a graph are stored, next to the graph itself
+	public static String getFile (String graphFile){
+
+		return graphFile + ".heads.txt";
+	}
+
+	//Whether the candidates of a graph were precomputed
+	public static boolean exists (String graphFile){
+
+		return graphFile != null && new File(getFile(graphFile)).exists();
+	}
+
+	//Segment every role literal and supertype of a graph, keeping the words that can be head words
+	public static HeadWordCandidates build (DefinitionGraph dg, TextHandler th){
+
+		HeadWordCandidates hwc = new HeadWordCandidates();
+
+		for (RoleReference ref : dg.getRoleReferences()){
+			String text = ref.getText();
+
+			if (!hwc.candidates.containsKey(text)){
+				try{
+					hwc.candidates.put(text, th.getContentWords(th.split(text)));
+				}
+				catch (Exception e){
+					e.printStackTrace();
+				}
+			}
+		}
+		return hwc;
+	}
+
+	//Identify the version of a graph file by its size and modification time
+	private static String getSignature (String graphFile){
+
+		File file = new File(graphFile);
+
+		return header + "\t" + file.length() + "\t" + file.lastModified();
+	}
+
+	//Escape the backslashes, tabs and line breaks of a field
+	public static String escape (String field){
+
+		return field.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	public static String unescape (String field){
+
+		StringBuilder sb = new StringBuilder(field.length());
+
+		for (int i=0; i < field.length(); i++){
+			char c = field.charAt(i);
+
+			if (c == '\\' && i + 1 < field.length()){
+				char next = field.charAt(++i);
+				sb.append(next == 't' ? '\t' : (next == 'n' ? '\n' : (next == 'r' ? '\r' : next)));
+			}
+			else{
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	//Read the candidates of a graph from the file written by save: a header line with the size and modification time
+	//of the graph, then one text per line followed by its "word;POS" candidates, all tab-separated and escaped. If the
+	//file was written for another version of the graph, null is returned, so that the candidates are found live
+	public static HeadWordCandidates load (String graphFile){
+
+		HeadWordCandidates hwc = new HeadWordCandidates();
+		String file = getFile(graphFile);
+
+		try (BufferedReader br = new BufferedReader(new FileReader(file))){
+			String line = br.readLine();
+
+			if (line == null || !line.equals(getSignature(graphFile))){
+				System.out.println("WARNING: " + file + " was not built from the current " + graphFile + ", ignoring it");
+				return null;
+			}
+
+			while ((line = br.readLine()) != null){
+				String[] fields = line.split("\t");
+				List<String> words = new ArrayList<String>(fields.length);
+
+				for (String field : Arrays.asList(fields).subList(1, fields.length)){
+					words.add(unescape(field));
+				}
+				hwc.candidates.put(unescape(fields[0]), words);
+			}
+		}
+		catch (IOException e){
+			e.printStackTrace();
+			return null;
+		}
+		return hwc;
+	}
+
+	//Write the candidates of a graph to its file, tagged with the version of the graph
+	public void save (String graphFile){
+
+		try (FileWriter writer = new FileWriter(getFile(graphFile))){
+			writer.write(getSignature(graphFile) + "\n");
+
+			for (Map.Entry<String, List<String>> entry : candidates.entrySet()){
+				writer.write(escape(entry.getKey()));
+
+				for (String word : entry.getValue()){
+					writer.write("\t" + escape(word));
+				}
+				writer.write("\n");
+			}
+		}
+		catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+	//Get a copy of the candidates of a text, or null if the text was not precomputed
+	public List<String> getCandidates (String text){
+
+		List<String> words = candidates.get(text);
+
+		return words == null ? null : new ArrayList<String>(words);
+	}
+
+	//Number of texts with precomputed candidates
+	public int size (){
+
+		return candidates.size();
+	}
+
+	//Precompute the candidates of a knowledge base: <config file> <WN|WKT|WKP|WBT>
+	public static void main (String[] args){
+
+		String configFile = args[0];
+		String kb = args[1];
+		Configuration config = new Configuration(configFile);
+		String graphFile = config.params.get(kb.toLowerCase() + "graph");
+
+		try{
+			TextHandler th = new TextHandler(config.params.get("wnpath"), kb);
+			DefinitionGraph dg = new DefinitionGraph(graphFile);
+
+			System.out.print("Segmenting role texts... ");
+			HeadWordCandidates hwc = build(dg, th);
+			hwc.save(graphFile);
+			System.out.println("Done. " + hwc.size() + " texts written to " + getFile(graphFile));
+		}
+		catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import util.TextHandler;
+
+public class HeadWordIndex {
+	
+	private Map<String, List<RoleReference>> index = new HashMap<String, List<RoleReference>>();
+	private TextHandler th;
+	
+	//Build the reverse index from each head word to the definition roles that mention it
+	public HeadWordIndex (DefinitionGraph dg, TextHandler handler){
+		
+		th = handler;
+		
+		for (RoleReference ref : dg.getRoleReferences()){
+			for (String key : getKeys(ref.getText())){
+				List<RoleReference> refs = index.get(key);
+				
+				if (refs == null){
+					refs = new ArrayList<RoleReference>();
+					index.put(key, refs);
+				}
+				refs.add(ref);
+			}
+		}
+	}
+	
+	//Get the index keys of a role literal: the whole phrase plus the noun and verb stems of each of its content words
+	private Set<String> getKeys (String text){
+		
+		Set<String> keys = new LinkedHashSet<String>();
+		String phrase = text.toLowerCase().replaceAll("[\\W&&[^-']]", " ").replaceAll("[\\s]+", " ").trim();
+		
+		if (phrase.isEmpty()){
+			return keys;
+		}
+		
+		keys.add(phrase.replaceAll(" ", "_"));
+		
+		for (String word : phrase.split(" ")){
+			if (!th.isStopWord(word)){
+				keys.add(word);
+				keys.add(th.normalize(word, "NN"));
+				keys.add(th.normalize(word, "VB"));
+			}
+		}
+		keys.remove("");
+		
+		return keys;
+	}
+	
+	//Get all the roles whose text mentions a given (normalized) word
+	public List<RoleReference> getReferences (String word){
+		
+		List<RoleReference> refs = index.get(word.toLowerCase().replaceAll(" ", "_"));
+		
+		return refs == null ? new ArrayList<RoleReference>() : refs;
+	}
+	
+	//Number of distinct head words in the index
+	public int size (){
+		
+		return index.size();
+	}
+	
+}
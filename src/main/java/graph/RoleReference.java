@@ -0,0 +1,52 @@
+package graph;
+
+import org.apache.jena.rdf.model.Resource;
+
+public class RoleReference {
+	
+	private Resource synset;
+	private String pos;
+	private String supertype;
+	private String text;
+	private String role;
+	
+	public RoleReference (Resource syn, String p, String spt, String txt, String r){
+		
+		synset = syn;
+		pos = p;
+		supertype = spt;
+		text = txt;
+		role = r;
+	}
+	
+	//Get the synset whose definition contains the role
+	public Resource getSynset (){
+		
+		return synset;
+	}
+	
+	//Get the POS tag (NN or VB) of the synset
+	public String getPOS (){
+		
+		return pos;
+	}
+	
+	//Get the supertype the role is linked to
+	public String getSupertype (){
+		
+		return supertype;
+	}
+	
+	//Get the literal text of the role
+	public String getText (){
+		
+		return text;
+	}
+	
+	//Get the role name
+	public String getRole (){
+		
+		return role;
+	}
+	
+}
@@ -1,68 +1,89 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 
 import data.EntailmentDecision;
 import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.trees.tregex.TregexMatcher;
 import edu.stanford.nlp.trees.tregex.TregexPattern;
-import util.AntonymTable;
-import util.HypernymTable;
-import util.SynsetTable;
+import util.AntonymMatcher;
+import util.Configuration;
+import util.HypernymIndex;
+import util.Lexicon;
+import util.SentenceAnnotation;
 import util.TextHandler;
 
 public class ContextCheck {
 	
-	private static SynsetTable synonyms = new SynsetTable();
-	private static AntonymTable antonyms = new AntonymTable();
-	private static HypernymTable hypernyms = new HypernymTable();
+	private static final String[] checkNames = {"negation", "opposition", "clause overflow", "inverse specialization"};
+	private static final LongAdder[] checkRuns = newCounters();
+	private static final LongAdder[] checkHits = newCounters();
+	private static final LongAdder[] checkTimes = newCounters();
+	private static final TregexPattern clausePattern = TregexPattern.compile("@CC $+ S | @CC $+ @VP | @SBAR");
+	private static Lexicon lexicon = Lexicon.getInstance();
+	private static AntonymMatcher antonymMatcher = new AntonymMatcher(lexicon);
+	private static HypernymIndex hypernymIndex;
+	private static String hypernymIndexFile;
 	private static TextHandler th;
 	
-	public ContextCheck (TextHandler handler){
+	public ContextCheck (TextHandler handler, String configfile){
 		
 		//Initialize the text handler
 		th = handler;
+		
+		//Map the hypernym ancestry index exported from WordNet, if it was built
+		loadHypernymIndex(new Configuration(configfile).params.get("hypernymindex"));
 	}
 	
-	//Check whether two words are synonyms
-	private boolean areSynonyms (String word1, String word2){
+	private static synchronized void loadHypernymIndex (String file){
+		
+		if (file != null && !file.equals(hypernymIndexFile)){
+			hypernymIndexFile = file;
+			hypernymIndex = HypernymIndex.load(file);
+			
+			if (hypernymIndex == null){
+				System.out.println("WARNING: hypernym index " + file + " not found, using direct hypernyms (see util.HypernymIndexBuilder)");
+			}
+		}
+	}
+	
+	private static LongAdder[] newCounters (){
 
-		boolean syns = false;
+		LongAdder[] counters = new LongAdder[checkNames.length];
 
-		//For hypernym detection purposes, both noun and verb forms of a word are considered
-		List<String> wordSyns = synonyms.getSynonyms(word1, "NN");
-		wordSyns.addAll(synonyms.getSynonyms(word1, "VB"));
-		
-		if (wordSyns.contains(word2)){
-			syns = true;
+		for (int i=0; i < counters.length; i++){
+			counters[i] = new LongAdder();
 		}
+		return counters;
+	}
+	
+	//Check whether two words are synonyms
+	private boolean areSynonyms (String word1, String word2){
 
-		return syns;
+		//For hypernym detection purposes, both noun and verb forms of a word are considered
+		return lexicon.areSynonyms(word1, word2, "NN") || lexicon.areSynonyms(word1, word2, "VB");
 	}
 	
 	//Check whether there is a total overlap between the text and the hypothesis
-  	private boolean totalOverlap (String text, String hyp){
+  	private boolean totalOverlap (SentenceAnnotation text, SentenceAnnotation hyp){
 
   		boolean empty = false;
 
   		try {	
-  			List<String> textTokens = th.tokenize(text);
-  			List<String> hypTokens = th.tokenize(hyp);
   			List<String> overlapTokens = new ArrayList<String>();
 
   			//Remove stop words from the text and hypothesis
-  			Predicate<String> isStopWord = s -> th.isStopWord(s.split(";")[0]);
-  			textTokens.removeIf(isStopWord);
-  			hypTokens.removeIf(isStopWord);
+  			List<String> textWords = new ArrayList<String>(text.getWords());
+  			List<String> hypWords = new ArrayList<String>(hyp.getWords());
+  			Predicate<String> isStopWord = s -> th.isStopWord(s);
+  			textWords.removeIf(isStopWord);
+  			hypWords.removeIf(isStopWord);
 
   			//Compute overlap
-  			List<String> textWords = new ArrayList<String>();
-  			List<String> hypWords = new ArrayList<String>();
-  			textTokens.stream().forEach((str) -> {textWords.add(str.split(";")[0]);});
-  			hypTokens.stream().forEach((str) -> {hypWords.add(str.split(";")[0]);});
-
   			for (String textWord : textWords){
   				if (hypWords.contains(textWord)){
   					overlapTokens.add(textWord);
@@ -80,33 +101,26 @@ public class ContextCheck {
   		return empty;
   	}
 	
-	//Returns all the subtrees of a parse tree that match a given TRegex expression
-  	private List<Tree> getAllTreeMatches (String expression, Tree parseTree){
-
-  		List<Tree> matches = new ArrayList<Tree>();
+	//Count the subtrees of a parse tree that match a precompiled TRegex pattern
+  	private int countTreeMatches (TregexPattern pattern, Tree parseTree){
 
-  		TregexPattern pattern = TregexPattern.compile(expression);
+  		int matches = 0;
   		TregexMatcher matcher = pattern.matcher(parseTree);
 
   		while (matcher.findNextMatchingNode()){
-  			matches.add(matcher.getMatch().deepCopy());
+  			matches++;
   		}
   		return matches;
   	}
 	
 	//Check whether the hypothesis has more clauses than the amount that can be satisfied by the text
-  	private boolean clauseOverflow (String text, String hyp){
+  	private boolean clauseOverflow (SentenceAnnotation text, SentenceAnnotation hyp){
   		
   		boolean overflow = false;
   		
-  		Tree textTree = th.parse(text).get(0);
-  		Tree hypTree = th.parse(hyp).get(0);
-  		
-  		String expression = "@CC $+ S | @CC $+ @VP | @SBAR";
-  		
   		//Get the number of clauses in the text and the hypothesis
-  		int totalClausesText = getAllTreeMatches(expression, textTree).size();
-  		int totalClausesHyp = getAllTreeMatches(expression, hypTree).size();
+  		int totalClausesText = countTreeMatches(clausePattern, text.getTree());
+  		int totalClausesHyp = countTreeMatches(clausePattern, hyp.getTree());
   		
   		if (totalClausesHyp > totalClausesText && !totalOverlap(text, hyp)){
   			overflow = true;
@@ -116,19 +130,15 @@ public class ContextCheck {
   	}
   	
   	//Check whether the hypothesis is a simple negation of the text or vice-versa
-  	private boolean isNegation (String text, String hyp){
+  	private boolean isNegation (SentenceAnnotation text, SentenceAnnotation hyp){
   		
   		boolean negation = false;
   			
-  		List<String> textTokens = th.tokenize(text);
-  		List<String> hypTokens = th.tokenize(hyp);
   		List<String> overlapTokens = new ArrayList<String>();
   		
   		//Compute overlap
-  		List<String> textWords = new ArrayList<String>();
-  		List<String> hypWords = new ArrayList<String>();
-  		textTokens.stream().forEach((str) -> {textWords.add(str.split(";")[0]);});
-  		hypTokens.stream().forEach((str) -> {hypWords.add(str.split(";")[0]);});
+  		List<String> textWords = new ArrayList<String>(text.getWords());
+  		List<String> hypWords = new ArrayList<String>(hyp.getWords());
 
   		for (String hypWord : hypWords){
   			if (textWords.contains(hypWord)){
@@ -160,19 +170,13 @@ public class ContextCheck {
   	}
   	
   	//Check whether the text and the hypothesis contains antonyms
-  	private boolean isOpposition (String text, String hyp){
+  	private boolean isOpposition (SentenceAnnotation text, SentenceAnnotation hyp){
   		
-  		boolean opposition = false;
-  		
-  		List<String> textTokens = th.tokenize(text);
-  		List<String> hypTokens = th.tokenize(hyp);
   		List<String> overlapTokens = new ArrayList<String>();
   		
   		//Compute overlap
-  		List<String> textWords = new ArrayList<String>();
-  		List<String> hypWords = new ArrayList<String>();
-  		textTokens.stream().forEach((str) -> {textWords.add(str.split(";")[0]);});
-  		hypTokens.stream().forEach((str) -> {hypWords.add(str.split(";")[0]);});
+  		List<String> textWords = new ArrayList<String>(text.getWords());
+  		List<String> hypWords = new ArrayList<String>(hyp.getWords());
 
   		for (String hypWord : hypWords){
   			if (textWords.contains(hypWord)){
@@ -185,32 +189,19 @@ public class ContextCheck {
   		textWords.removeIf(redundant);
   		hypWords.removeIf(redundant);
   		
-  		//Search the hypothesis as a string (and not as a list) to get multi-word expressions
-  		String normalizedHyp = th.listToString(hypWords);
-  		
-  		for (String textWord : textWords){
-  			List<String> wordAntonyms = antonyms.getAntonyms(textWord.replaceAll(" ", "_"));
-  			
-  			for (String antonym : wordAntonyms){
-  				if (normalizedHyp.contains(antonym.replaceAll("_", " "))){
-  					opposition = true;
-  					break;
-  				}
-  			}
-  		}
-  		
-  		return opposition;
+  		//Match the terms of the remaining words, single and multi-word, in one pass over each sentence
+  		return antonymMatcher.hasOpposition(textWords, hypWords);
   	}
   	
   	//Checks whether the hypothesis is erroneously specializing a concept from the text
-  	private boolean hasInverseSpecialization (String text, String hyp){
+  	private boolean hasInverseSpecialization (SentenceAnnotation text, SentenceAnnotation hyp){
   		
   		boolean inverseSpec = false;
   		
   		if (!totalOverlap(text, hyp)){
 	  		try{
-		  		List<String> textTokens = th.split(text);
-		  		List<String> hypTokens = th.split(hyp);
+		  		List<String> textTokens = new ArrayList<String>(text.getChunks());
+		  		List<String> hypTokens = new ArrayList<String>(hyp.getChunks());
 		  		List<String> overlapTokens = new ArrayList<String>();
 		  		
 		  		//Compute overlap	  		
@@ -229,14 +220,27 @@ public class ContextCheck {
 		  		textTokens.stream().forEach((str) -> {textWords.add(str.split(";")[0]);});
 		  		
 		  		for (String hypToken : hypTokens){
-		  			String hypWord = hypToken.split(";")[0];
+		  			String hypWord = hypToken.split(";")[0].replaceAll(" ", "_");
 		  			String hypPos = hypToken.split(";")[1];
-		  			List<String> wordHypernyms = hypernyms.getHypernyms(hypWord.replaceAll(" ", "_"), hypPos);
 		  			
-		  			for (String hypernym : wordHypernyms){
-		  				if (textWords.contains(hypernym) && !areSynonyms(hypWord, hypernym) && !hypernym.equals("be")){ 
-		  					inverseSpec = true;
-		  					break;
+		  			if (hypernymIndex != null){
+		  				//Transitive hypernyms, answered by the ancestry index
+		  				for (String textWord : textWords){
+		  					String hypernym = textWord.replaceAll(" ", "_");
+		  					
+		  					if (hypernymIndex.isHypernym(hypernym, hypWord, hypPos) && !areSynonyms(hypWord, hypernym) && !hypernym.equals("be")){
+		  						inverseSpec = true;
+		  						break;
+		  					}
+		  				}
+		  			}
+		  			else{
+		  				//Direct hypernyms from the lexicon
+		  				for (String hypernym : lexicon.getHypernyms(hypWord, hypPos)){
+		  					if (textWords.contains(hypernym) && !areSynonyms(hypWord, hypernym) && !hypernym.equals("be")){ 
+		  						inverseSpec = true;
+		  						break;
+		  					}
 		  				}
 		  			}
 		  		}
@@ -250,14 +254,81 @@ public class ContextCheck {
   		return inverseSpec;
   	}
 	
+	//Run a single check on the pair
+	private boolean runCheck (int check, SentenceAnnotation text, SentenceAnnotation hyp){
+
+		switch (check){
+			case 0: return isNegation(text, hyp);
+			case 1: return isOpposition(text, hyp);
+			case 2: return clauseOverflow(text, hyp);
+			default: return hasInverseSpecialization(text, hyp);
+		}
+	}
+
+	//Get the checks sorted by their average measured time, cheapest first. Checks that have not run yet come first,
+	//so that all of them get measured; ties keep the default order, which follows the expected costs (tokens, then
+	//the parse tree, then the WordNet phrases)
+	private static List<Integer> getCheckOrder (){
+
+		List<Integer> order = new ArrayList<Integer>();
+		double[] averages = new double[checkNames.length];
+
+		for (int i=0; i < checkNames.length; i++){
+			order.add(i);
+			averages[i] = getAverageTime(i);
+		}
+		order.sort(Comparator.comparingDouble(check -> averages[check]));
+
+		return order;
+	}
+
+	private static double getAverageTime (int check){
+
+		long runs = checkRuns[check].sum();
+
+		return (runs == 0) ? 0 : (double) checkTimes[check].sum() / runs;
+	}
+
+	//Report the runs, the decisive runs and the average time of each check so far
+	public static String getTimings (){
+
+		String timings = new String();
+
+		for (int check : getCheckOrder()){
+			timings += String.format("\n  %s: %d runs, %d decisive, %.2f ms avg", checkNames[check],
+					checkRuns[check].sum(), checkHits[check].sum(), getAverageTime(check) / 1e6);
+		}
+		return timings;
+	}
+
 	//Look for a simple negation, a simple opposition, clause unsatisfiability or inverse specialization
   	//in the entailment pair
 	public EntailmentDecision checkContext (String text, String hyp){
+
+		return checkContext(new SentenceAnnotation(text, th), new SentenceAnnotation(hyp, th));
+	}
+
+	//Look for the same context information on already annotated sentences. The checks share the annotations and
+	//run cheapest first, stopping at the first one that holds
+	public EntailmentDecision checkContext (SentenceAnnotation text, SentenceAnnotation hyp){
 		
 		EntailmentDecision decision = new EntailmentDecision();
+		boolean holds = false;
+		
+		for (int check : getCheckOrder()){
+			long start = System.nanoTime();
+
+			holds = runCheck(check, text, hyp);
+			checkTimes[check].add(System.nanoTime() - start);
+			checkRuns[check].increment();
+
+			if (holds){
+				checkHits[check].increment();
+				break;
+			}
+		}
 		
-		if (isNegation(text, hyp) || isOpposition(text, hyp) || 
-				clauseOverflow(text, hyp) || hasInverseSpecialization(text, hyp)){
+		if (holds){
 			decision.setDecision("no");
 			decision.setJustification("null");
 		}
@@ -1,10 +1,19 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
-import java.util.Vector;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import org.apache.jena.rdf.model.Resource;
@@ -12,21 +21,34 @@ import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
 import data.EntailmentDecision;
+import data.SearchStats;
 import graph.DefinitionGraph;
+import graph.HeadWordCandidates;
+import graph.HeadWordIndex;
+import graph.RoleReference;
+import models.PathNode.Role;
 import util.Configuration;
 import util.IndraCall;
-import util.SynsetTable;
+import util.Lexicon;
 import util.TextHandler;
 
 public class GraphNavigation {
 	
-	private static final int maxEntries = 5;
-	private static final int maxDepth = 5;
-	private static final int maxPaths = 100;
-	private static final int searchLimit = 200;
-	private static SynsetTable synTable = new SynsetTable();
+	private static final int minDepth = 1; //shallowest possible path: only the target step is counted
+	private static PathCache pathCache;
+	private static Lexicon lexicon = Lexicon.getInstance();
 	private static DefinitionGraph dg;
 	private static TextHandler th;
+	private final SearchBudget defaultBudget;
+	private final ExecutorService pairSearch;
+	private final String knowledgeBase;
+	private final String graphSignature;
+	private final HeadWordCandidates headCandidates;
+	private HeadWordIndex headIndex;
+	private boolean bidirectional;
+	private boolean pruneStates;
+	private boolean bestFirst;
+	private volatile boolean cachePaths = true;
 	
 	public GraphNavigation (TextHandler handler, String kb, String configfile){
 		
@@ -52,20 +74,61 @@ public class GraphNavigation {
 		else if (kb.equals("WBT")){
 			dg = new DefinitionGraph(config.params.get("wbtgraph"));
 		}
+		
+		//Read the head-word candidates precomputed for the graph, if any
+		String graphFile = config.params.get(kb.toLowerCase() + "graph");
+		headCandidates = HeadWordCandidates.exists(graphFile) ? HeadWordCandidates.load(graphFile) : null;
+		
+		//Read the search budgets and start the workers that search the source-target pairs of this instance
+		defaultBudget = new SearchBudget(config);
+		pairSearch = Executors.newFixedThreadPool(defaultBudget.getMaxEntries(), r -> {
+			Thread t = new Thread(r, "gn-pair-search");
+			t.setDaemon(true);
+			return t;
+		});
+		
+		//Open the cache of search results the first time, so that it is shared by all instances, and drop the results
+		//found in an older version of the graph
+		knowledgeBase = kb;
+		graphSignature = PathCache.getSignature(graphFile);
+		
+		if (pathCache == null && config.params.get("gncache") != null){
+			String size = config.params.get("gncachesize");
+			pathCache = new PathCache(config.params.get("gncache"), (size == null) ? 10000 : Integer.parseInt(size.trim()));
+		}
+		if (pathCache != null){
+			pathCache.discardStale(knowledgeBase, graphSignature);
+		}
+		
+		//Build the reverse head-word index if the search also grows a frontier from the target
+		setBidirectional(Boolean.parseBoolean(config.params.get("gnbidirectional")));
+		pruneStates = Boolean.parseBoolean(config.params.get("gnprunestates"));
+		bestFirst = "bestfirst".equals(config.params.get("gnsearch"));
+		
 		System.out.println("Done.\n");
 	}
 	
-	//Check whether two words are synonyms
-	private boolean areSynonyms (String word1, String word2, String pos){
+	//Whether complete searches from now on are stored in the path cache (turned off while the engine warms up, so
+	//that the sample pairs searched with a short timeout do not change the cache file)
+	public void setCachePaths (boolean c){
+		
+		cachePaths = c;
+	}
+	
+	//Enable or disable the bidirectional search, building the reverse head-word index the first time it is needed
+	public void setBidirectional (boolean enabled){
 		
-		boolean syns = false;
+		bidirectional = enabled;
 		
-		List<String> synonyms = synTable.getSynonyms(word1, pos);
-		if (synonyms.contains(word2)){
-			syns = true;
+		if (bidirectional && headIndex == null){
+			headIndex = new HeadWordIndex(dg, th);
 		}
+	}
+	
+	//Check whether two words are synonyms
+	private boolean areSynonyms (String word1, String word2, String pos){
 		
-		return syns;
+		return lexicon.areSynonyms(word1, word2, pos);
 	}
 	
 	//Find the best threshold for a ranked list of scores using semantic differential analysis
@@ -89,12 +152,20 @@ public class GraphNavigation {
 		return bottomValue;
 	}
 	
+	//Time left until a deadline, in milliseconds, or 0 if there is none
+	private static long getRemainingTime (long deadline){
+		
+		return (deadline == Long.MAX_VALUE) ? 0 : Math.max(1, deadline - System.currentTimeMillis());
+	}
+	
 	//Get the similarity scores for all the pairs of terms and returns the terms with the highest similarity values
 	@SuppressWarnings("rawtypes")
-	private List<String> getBestMatches (String target, List<String> nodes, boolean ascending){
+	private List<String> getBestMatches (String target, List<String> nodes, boolean ascending, long deadline, SearchStats stats){
 
 		List<String> bestMatches = new ArrayList<String>();
-		List<Map> scores = IndraCall.getResponse(target, nodes);
+		long start = System.nanoTime();
+		List<Map> scores = IndraCall.getResponse(target, nodes, getRemainingTime(deadline));
+		stats.countRelatednessCall(nodes.size(), start);
 
 		//Sort results, using insertion sort
 		Map temp;
@@ -144,22 +215,18 @@ public class GraphNavigation {
 		return bestMatches;
 	}
 	
-	//Get the main words in a segment according to their semantic similarity to the target word
+	//Get the main words in a segment according to their semantic similarity to the target word, keeping
+	//the similarity score of each of them
 	@SuppressWarnings("rawtypes")
-	private List<String> getHeadWords (List<String> segment, String target, boolean ascending){
+	private List<String> getHeadWords (List<String> segment, String target, boolean ascending, Map<String, Double> relatedness, SearchBudget budget, long deadline, SearchStats stats){
 			
 		List<String> headWords = new ArrayList<String>();
 		
-		//Remove stop words
-  		Predicate<String> isStopWord = s -> th.isStopWord(s.split(";")[0]);
-  		segment.removeIf(isStopWord);
-		
-		//Remove words with low IDF
-  		segment = th.removeLowIDF(segment);
-		
 		if (segment.size() > 0){
 			//Compute the semantic similarity between each word and the target
-			List<Map> scores = IndraCall.getResponse(target, segment);
+			long start = System.nanoTime();
+			List<Map> scores = IndraCall.getResponse(target, segment, getRemainingTime(deadline));
+			stats.countRelatednessCall(segment.size(), start);
 			
 			//Sort words according to the similarity score
 			Map temp;
@@ -180,7 +247,11 @@ public class GraphNavigation {
 			}	
 			
 			//Get the <max> words with the highest similarity scores
-			int maxWords = Math.min(scores.size(), maxEntries);
+			int maxWords = Math.min(scores.size(), budget.getMaxEntries());
+			for (int k=0; k < maxWords; k++){
+				relatedness.put((String) scores.get(k).get("t2"), Math.abs((Double) scores.get(k).get("score")));
+			}
+			
 			if (ascending){
 				for (int k=maxWords-1; k >= 0; k--){
 					headWords.add((String) scores.get(k).get("t2"));			
@@ -213,132 +284,245 @@ public class GraphNavigation {
 	}
 
 	//Calculate the number of nodes visited in the path
-	private int getPathDepth (Vector<String> path){
-
-		int depth = 0;
-
-		if (path.size() > 50){ //path probably in loop, assign max depth + 1 to stop search
-			depth = maxDepth + 1;
-		}
-		else{
-			String nextNodeRole = new String();
-			String previousNodeRole = "source";
-
-			for (int i=0; i < path.size(); i++){
-				String nodeRole = path.get(i).split(";")[1];
-
-				if ((i+1) < path.size()){
-					nextNodeRole = path.get(i+1).split(";")[1];
-				}
-
-				if (!nodeRole.equals("source") && !nodeRole.equals("supertype head") &&	!nodeRole.startsWith("head") 
-						&& !nodeRole.startsWith("synonym") && (!nodeRole.startsWith("supertype") 
-								|| (nodeRole.startsWith("supertype") && nextNodeRole.startsWith("supertype") 
-										&& !nextNodeRole.startsWith("head") && !nextNodeRole.equals("supertype head")
-										|| ((nextNodeRole.startsWith("head") || nextNodeRole.equals("supertype head")) 
-												&& previousNodeRole.equals("source"))))){
-					depth++;
-				}
-				previousNodeRole = nodeRole;
-			}
-		}	
-
-		return depth;
-	}
-
-	//Take all the information that is no longer necessary off the path
-	private Vector<String> cleanPath(Vector<String> path){
-
-		Vector<String> newPath = new Vector<String>();
-
-		newPath.add(path.get(0)); //source
-		newPath.add(path.get(1)); //source's supertype
+	private int getPathDepth (PathNode path, SearchBudget budget){
 
-		//Remove circular references and consecutive duplicated steps in the path
-		for (int i=2; i < path.size()-1; i++){
-			String step = path.get(i);
-			String stepNode = step.split("#")[0];
-			String role = step.split(";")[1];
-
-			String previousStep = path.get(i-1);
-			String nextStep = path.get(i+1);
-			String previousNewStep = newPath.get(newPath.size()-1);
-
-			if (!step.equals(previousStep) && !step.equals(previousNewStep)
-					&& (!role.equals("supertype of " + stepNode) 
-							|| (role.equals("supertype of " + stepNode) && !nextStep.contains(";supertype")))
-					&& !previousStep.equals(nextStep)){
-				newPath.add(step);
-			}
-		}
-
-		newPath.add(path.get(path.size()-1)); //target
-
-		return newPath;
+		//Path probably in loop, assign max depth + 1 to stop search
+		return (path.size() > 50) ? budget.getMaxDepth() + 1 : path.getDepth();
 	}
 
 	//Get the shortest path, i.e., the path with the shortest number of nodes visited
-	@SuppressWarnings("unchecked")
-	private Vector<String> getShortestPath (Vector<Vector<String>> paths){
+	private PathNode getShortestPath (List<PathNode> paths, SearchBudget budget){
 
-		Vector<String> shortestPath = paths.get(0);
-		int shortestDepth = getPathDepth(paths.get(0));
+		PathNode shortestPath = paths.get(0);
+		int shortestDepth = getPathDepth(paths.get(0), budget);
 
-		for (Vector<String> path : paths){
-			int depth = getPathDepth(path);
+		for (PathNode path : paths){
+			int depth = getPathDepth(path, budget);
 
 			if (depth < shortestDepth){
-				shortestPath = (Vector<String>) path.clone();
+				shortestPath = path;
 				shortestDepth = depth;
 			}
 		}
 
 		return shortestPath;
 	}
-
-	//Find the paths in the RDF graph between the source and target terms, DFS style
-	@SuppressWarnings("unchecked")
-	private Vector<Vector<String>> findPaths(String source, String sPOS, String target, String tPOS){
-
-		Vector<Vector<String>> paths = new Vector<Vector<String>>();	
-		Stack<Vector<String>> subpaths = new Stack<Vector<String>>();
+	
+	//Extend a path with a head word, given as "word;POS"
+	private PathNode extendHead (PathNode path, String headWord, Role role){
+		
+		String[] parts = headWord.split(";");
+		
+		return path.extend(parts[0], parts.length > 1 ? parts[1] : "", role);
+	}
+	
+	//Grow a frontier backwards from the target through the reverse head-word index. Each word reached is mapped
+	//to the steps that lead from it to the target, to be appended to a forward path from the root that reaches the word
+	private Map<String, List<PathNode>> getBackwardFrontier (PathNode root, String target, String tPOS, SearchBudget budget){
+		
+		Map<String, List<PathNode>> suffixes = new HashMap<String, List<PathNode>>();
+		Map<String, String> wordPOS = new HashMap<String, String>();
+		List<String> frontier = new ArrayList<String>();
+		
+		suffixes.put(target, new ArrayList<PathNode>());
+		wordPOS.put(target, tPOS);
+		frontier.add(target);
+		
+		//Each side covers half of the maximum depth
+		for (int level=0; level < (budget.getMaxDepth() + 1) / 2 && !frontier.isEmpty(); level++){
+			List<String> nextFrontier = new ArrayList<String>();
+			
+			for (String word : frontier){
+				for (RoleReference ref : headIndex.getReferences(word)){
+					for (String label : dg.getSynonyms(ref.getSynset())){
+						String node = label.toLowerCase().replaceAll(" ", "_");
+						
+						if (suffixes.containsKey(node) || suffixes.size() >= budget.getSearchLimit()){
+							continue;
+						}
+						
+						List<PathNode> steps = new ArrayList<PathNode>();
+						
+						if (ref.getRole().equals("has_supertype")){
+							steps.add(root.step(word, ref.getPOS(), Role.SUPERTYPE, node));
+						}
+						else{
+							steps.add(root.step(ref.getSupertype(), ref.getPOS(), Role.SUPERTYPE, node));
+							steps.add(root.step(ref.getText(), null, Role.DEFINITION, ref.getRole()));
+							steps.add(root.step(word.replaceAll("_", " "), wordPOS.get(word), Role.HEAD, null));
+						}
+						steps.addAll(suffixes.get(word));
+						
+						suffixes.put(node, steps);
+						wordPOS.put(node, ref.getPOS());
+						nextFrontier.add(node);
+					}
+				}
+			}
+			frontier = nextFrontier;
+		}
+		
+		return suffixes;
+	}
+	
+	//Join a forward path to the backward frontier if the node being analyzed was reached from the target,
+	//returning null if they don't meet within the maximum depth
+	private PathNode meetBackward (PathNode path, String node, Map<String, List<PathNode>> backward, SearchBudget budget){
+		
+		List<PathNode> suffix = backward.get(node);
+		
+		if (suffix == null || suffix.isEmpty()){
+			return null;
+		}
+		
+		PathNode joined = path;
+		for (PathNode step : suffix){
+			joined = joined.append(step);
+		}
+		
+		return (getPathDepth(joined, budget) > budget.getMaxDepth()) ? null : joined;
+	}
+	
+	//Put a path on the frontier, unless an identical path is already waiting there. Paths are ordered by the least
+	//depth they can reach once complete
+	private void push (SearchFrontier subpaths, PathNode path, double score){
+		
+		subpaths.push(path, path.getMinDepth(), score);
+	}
+	
+	//Get the words of a role text that can be head words, precomputed offline or segmented on the spot
+	private List<String> getCandidates (String text, SearchStats stats) throws Exception{
+		
+		List<String> candidates = (headCandidates == null) ? null : headCandidates.getCandidates(text);
+		
+		if (candidates == null){
+			long start = System.nanoTime();
+			candidates = th.getContentWords(th.split(text));
+			stats.countSplitCall(start);
+		}
+		return candidates;
+	}
+	
+	//Find the paths in the RDF graph between the source and target terms, DFS style or, in best-first mode, in
+	//order of the least depth they can reach. Paths already deeper than the best depth found so far by any of the concurrent searches are not
+	//expanded (paths as deep as it are, since steps such as synonyms and head words do not add to the depth), and the
+	//search returns the paths found so far when its deadline expires
+	private SearchResult findPaths(String source, String sPOS, String target, String tPOS, SearchBudget budget, AtomicInteger bestDepth, AtomicBoolean stop){
+
+		long searchStart = System.nanoTime();
+		SearchResult result = new SearchResult();
+		SearchStats stats = result.getStats();
+		List<PathNode> paths = result.getPaths();
+		List<PathNode> candidates = new ArrayList<PathNode>();
+		int maxDepth = budget.getMaxDepth();
+		long deadline = (budget.getTimeout() > 0) ? System.currentTimeMillis() + budget.getTimeout() : Long.MAX_VALUE;
+		Set<PathNode> found = new HashSet<PathNode>();
+		SearchFrontier subpaths = new SearchFrontier(bestFirst);
+		Map<String, Double> relatedness = new HashMap<String, Double>();
+		Set<Long> visited = new HashSet<Long>();
 		String Vnsp = dg.getVerbNamespace();
 		String Nnsp = dg.getNounNamespace();
 		int totalPathsTried = 0;
+		int ownBest = maxDepth + 1; //best depth found by this search
 		boolean targetReached = false;
 
 		String nsp = sPOS.startsWith("NN") ? Nnsp : Vnsp;
 		String pos = sPOS.startsWith("VB") ? "VB" : "NN";
 		tPOS = tPOS.startsWith("VB") ? "VB" : "NN";
-		Vector<String> newPath = new Vector<String>();
-		newPath.add(source + "#" + pos + ";source");
-		subpaths.push(newPath);
+		PathNode root = PathNode.source(source, pos);
+		push(subpaths, root, 0.0);
+		
+		//In bidirectional mode, the search stops as soon as it meets the frontier grown from the target
+		Map<String, List<PathNode>> backward = bidirectional ? getBackwardFrontier(root, th.normalize(target, tPOS), tPOS, budget) 
+				: new HashMap<String, List<PathNode>>();
 
 		while (!subpaths.isEmpty()){
 
-			Vector<String> currentPath = subpaths.pop();
-			int depth = getPathDepth(currentPath);
+			//Stop if the search is no longer needed, keeping the paths and the counters so far. Such a search may
+			//have missed paths, so it is marked as bounded by the other searches
+			if (Thread.currentThread().isInterrupted() || stop.get()){
+				result.setBounded(true);
+				break;
+			}
+			
+			//Stop at the deadline, keeping the paths found so far
+			if (System.currentTimeMillis() > deadline){
+				result.setTimeLimited(true);
+				stats.countBudgetHit();
+				paths.addAll(candidates);
+				break;
+			}
+			
+			stats.updateFrontier(subpaths.size());
+			PathNode currentPath = subpaths.pop();
+			double currentScore = subpaths.getLastScore();
+			
+			//Optionally skip paths that reach a node, with the same POS and depth, already expanded by another path
+			if (pruneStates && !visited.add(currentPath.getStateKey())){
+				continue;
+			}
+			
+			int depth = getPathDepth(currentPath, budget);
+			
+			//Skip paths that are already deeper than the best path found by any search
+			if (isPruned(depth, bestDepth, ownBest, result)){
+				stats.countPrunedPath();
+				continue;
+			}
+			
+			//In best-first mode, a complete path is accepted when it comes out of the frontier. Cleaning can make a
+			//path shallower than its bound on the frontier, so the first one is not always the shallowest: the search
+			//goes on, and the paths deeper than the best one found are pruned as they come out
+			if (bestFirst && currentPath.getRole() == Role.TARGET){
+				candidates.remove(currentPath);
+				paths.add(currentPath);
+				targetReached = true;
+				ownBest = Math.min(ownBest, depth);
+				bestDepth.accumulateAndGet(ownBest, Math::min);
+				continue;
+			}
+			
+			stats.countNodeExpanded();
+			boolean deferred = false;
+			boolean expired = false;
 			boolean match = false;
-			String currentRole = currentPath.get(currentPath.size()-1).split(";")[1];
-			String pathEnd = currentPath.get(currentPath.size()-1).split(";")[0];
-			String lastNode = pathEnd.contains("#") ? pathEnd.split("#")[0] : pathEnd;
-			pos = pathEnd.contains("#") ? pathEnd.split("#")[1] : pos;
+			Role currentRole = currentPath.getRole();
+			String lastNode = currentPath.getNode();
+			pos = (currentPath.getPOS() != null) ? currentPath.getPOS() : pos;
 			String nextNode = th.normalize(lastNode, pos);
 			String lastSynsetNotFound = new String();
 			
 			if (nextNode.equals(th.normalize(target, tPOS))){
 				match = true;
 			}
+			else{
+				PathNode joined = meetBackward(currentPath, nextNode, backward, budget);
+				
+				if (joined != null){
+					currentPath = joined;
+					match = true;
+					nextNode = th.normalize(target, tPOS);
+				}
+			}
 			
-			if (areSynonyms(nextNode, th.normalize(target, tPOS), pos)){
-				currentPath.add(nextNode + "#" + pos + ";synonym of " + th.normalize(target, tPOS).replaceAll("_", " "));
+			if (!match && areSynonyms(nextNode, th.normalize(target, tPOS), pos)){
+				currentPath = currentPath.extend(nextNode, pos, Role.SYNONYM, th.normalize(target, tPOS).replaceAll("_", " "));
 			}
 
-			while (!nextNode.equals(th.normalize(target, tPOS)) && depth <= maxDepth){
+			while (!nextNode.equals(th.normalize(target, tPOS)) && depth <= maxDepth && !isPruned(depth, bestDepth, ownBest, result)){
+				
+				//An expansion can make several graph reads and relatedness calls, so the deadline (and whether the
+				//search is still needed) is also checked between its steps
+				if (stop.get() || System.currentTimeMillis() > deadline){
+					expired = true;
+					break;
+				}
+				
 				match = false;
-				currentRole = currentPath.get(currentPath.size()-1).split(";")[1];
+				currentRole = currentPath.getRole();
+				PathNode stepStart = currentPath;
 
-				if (currentRole.contains("synonym")){
+				if (currentRole == Role.SYNONYM){
 					match = true;						
 					break;
 				}
@@ -346,20 +530,22 @@ public class GraphNavigation {
 				nsp = pos.startsWith("NN") ? Nnsp : Vnsp;
 
 				//Get all the synsets that contains the word/phrase currently being analyzed (starting by the source)
+				long start = System.nanoTime();
 				List<Resource> synsets = dg.getSynsets(nextNode, nsp);
+				stats.countSynsetLookup(start);
 
 				if (synsets.size() > 0){
 					
 					//If the next node is still the source node, check all synonyms before going ahead
-					if (currentRole.equals("source")){
+					if (currentRole == Role.SOURCE){
 						for (Resource synset : synsets){
 							List<String> synWords = dg.getSynonyms(synset);
 
 							for (String synWord : synWords){
 								
 								if (areSynonyms(synWord, th.normalize(target, tPOS).replaceAll("_", " "), pos)){
-									currentPath.add(lastNode + "#" + pos + ";synonym of " + th.normalize(target, tPOS).replaceAll("_", " "));
-									subpaths.push((Vector<String>) currentPath.clone());
+									currentPath = currentPath.extend(lastNode, pos, Role.SYNONYM, th.normalize(target, tPOS).replaceAll("_", " "));
+									push(subpaths, currentPath, 1.0);
 									match = true;											
 									break;
 								}
@@ -372,10 +558,14 @@ public class GraphNavigation {
 					
 					if (!match){
 						//Get all the supertypes of the retrieved synsets
+						start = System.nanoTime();
 						List<Resource> supertypes = dg.getSupertypes(synsets);
+						stats.countSynsetLookup(start);
 	
 						//Get all the roles linked to the supertypes, then get the most similar ones w.r.t. the target
+						start = System.nanoTime();
 						Map<String, List<String>> tuples = dg.listRolesBySupertype(synsets, supertypes);
+						stats.countRoleQuery(start);
 						List<String> allSegments = new ArrayList<String>();
 	
 						for (List<String> roleSet : tuples.values()){
@@ -387,7 +577,7 @@ public class GraphNavigation {
 							cleanSegs.add(seg.split(";")[0]);
 						}
 	
-						List<String> bestSegments = getBestMatches(th.normalize(target, tPOS).replaceAll("_", " "), cleanSegs, false);
+						List<String> bestSegments = getBestMatches(th.normalize(target, tPOS).replaceAll("_", " "), cleanSegs, false, deadline, stats);
 	
 						for (int l=0; l < bestSegments.size(); l++){ //put the role name back
 							for (String segment : allSegments){
@@ -402,16 +592,17 @@ public class GraphNavigation {
 						List<String> bestSupertypes = filterSupertypes(tuples, bestSegments);
 	
 						//Work on the first supertype and put all the other ones in the stack to be processed later
-						Vector<String> currentPathBkp = (Vector<String>) currentPath.clone();
+						PathNode currentPathBkp = currentPath;
 	
-						for (int i=1; i < bestSupertypes.size(); i++){
+						for (int i=1; i < bestSupertypes.size() && System.currentTimeMillis() <= deadline && !stop.get(); i++){
 							String bestSupertype = bestSupertypes.get(i);
-							Vector<String> altSptPath = (Vector<String>) currentPathBkp.clone();
-							pathEnd = altSptPath.get(altSptPath.size()-1).split(";")[0];
-							lastNode = pathEnd.contains("#") ? pathEnd.split("#")[0] : pathEnd;
+							PathNode altSptPath = currentPathBkp;
+							lastNode = altSptPath.getNode();
 	
 							//Get the synsets linked to this supertype
+							start = System.nanoTime();
 							List<Resource> bestSynsets = dg.getSynsetsBySupertype(synsets, bestSupertype);
+							stats.countSynsetLookup(start);
 	
 							//Get all the synonyms to check whether one of them matches the target
 							for (Resource synset : bestSynsets){
@@ -419,8 +610,8 @@ public class GraphNavigation {
 	
 								for (String synWord : synWords){
 									if (areSynonyms(synWord, th.normalize(target, tPOS).replaceAll("_", " "), pos)){
-										altSptPath.add(lastNode + "#" + pos + ";synonym of " + th.normalize(target, tPOS).replaceAll("_", " "));
-										subpaths.push((Vector<String>) altSptPath.clone());
+										altSptPath = altSptPath.extend(lastNode, pos, Role.SYNONYM, th.normalize(target, tPOS).replaceAll("_", " "));
+										push(subpaths, altSptPath, 1.0);
 										match = true;											
 										break;
 									}
@@ -432,7 +623,9 @@ public class GraphNavigation {
 	
 							if (!match){																					
 								//Get all the roles linked to the this supertype, in the selected synsets
+								start = System.nanoTime();
 								List<String> allRoles = dg.getRolesBySupertype(bestSynsets, bestSupertype);
+								stats.countRoleQuery(start);
 	
 								//Get the most similar roles w.r.t. the target
 								List<String> roles = new ArrayList<String>();
@@ -440,7 +633,7 @@ public class GraphNavigation {
 									roles.add(role.split(";")[0]);
 								}
 	
-								List<String> bestRoles = getBestMatches(th.normalize(target, tPOS).replaceAll("_", " "), roles, true);
+								List<String> bestRoles = getBestMatches(th.normalize(target, tPOS).replaceAll("_", " "), roles, true, deadline, stats);
 	
 								for (int l=0; l < bestRoles.size(); l++){ //put the role name back
 									for (String role : allRoles){
@@ -452,29 +645,26 @@ public class GraphNavigation {
 								}
 	
 								//Put the supertype in the path
-								altSptPath.add(bestSupertype + "#" + pos + ";supertype of " + lastNode);
+								altSptPath = altSptPath.extend(bestSupertype, pos, Role.SUPERTYPE, lastNode);
 	
 								//Work on roles linked to this supertype
-								for (int j=0; j < bestRoles.size(); j++){
-									Vector<String> newAltPath = (Vector<String>) altSptPath.clone();
+								for (int j=0; j < bestRoles.size() && System.currentTimeMillis() <= deadline && !stop.get(); j++){
+									PathNode newAltPath = altSptPath;
 	
 									//Work on head words for this role
 									if (!bestRoles.get(j).endsWith(";has_supertype")){
-										newAltPath.add(bestRoles.get(j));
+										newAltPath = newAltPath.extendRole(bestRoles.get(j));
 										String text = bestRoles.get(j).split(";")[0];
 										
 										try{
-											List<String> chunks = th.split(text);
-											List<String> headWords = getHeadWords(chunks, th.normalize(target, tPOS).replaceAll("_", " "), true);
+											List<String> chunks = getCandidates(text, stats);
+											List<String> headWords = getHeadWords(chunks, th.normalize(target, tPOS).replaceAll("_", " "), true, relatedness, budget, deadline, stats);
 		
 											//Create a new path for each of the head words and put them on the stack
 											for (int k=0; k < headWords.size(); k++){
-												Vector<String> newAltWordPath = (Vector<String>)newAltPath.clone();
-												newAltWordPath.add(headWords.get(k).replace(";", "#") + ";head");
+												PathNode newAltWordPath = extendHead(newAltPath, headWords.get(k), Role.HEAD);
 		
-												if (!subpaths.contains(newAltWordPath)){
-													subpaths.push((Vector<String>)newAltWordPath.clone());													
-												}
+												push(subpaths, newAltWordPath, relatedness.getOrDefault(headWords.get(k), 0.0));
 											}
 										}
 										catch (Exception e){
@@ -482,10 +672,7 @@ public class GraphNavigation {
 										}
 									}
 									else{
-										if (!subpaths.contains(newAltPath)){
-											subpaths.push((Vector<String>)newAltPath.clone());	
-												
-										}	
+										push(subpaths, newAltPath, currentScore);
 									}
 								}
 							}
@@ -494,7 +681,9 @@ public class GraphNavigation {
 						//Work on the first supertype
 						match = false;
 						String firstSupertype = bestSupertypes.get(0);
+						start = System.nanoTime();
 						List<Resource> bestSynsets = dg.getSynsetsBySupertype(synsets, firstSupertype);
+						stats.countSynsetLookup(start);
 	
 						//Get all the synonyms to check whether one of them matches the target
 						for (Resource synset : bestSynsets){
@@ -502,7 +691,7 @@ public class GraphNavigation {
 	
 							for (String synWord : synWords){
 								if (areSynonyms(synWord, th.normalize(target, tPOS).replaceAll("_", " "), pos)){
-									currentPath.add(nextNode.replaceAll("_", " ") + "#" + pos + ";synonym of " + th.normalize(target, tPOS).replaceAll("_", " "));
+									currentPath = currentPath.extend(nextNode.replaceAll("_", " "), pos, Role.SYNONYM, th.normalize(target, tPOS).replaceAll("_", " "));
 									match = true;									
 									nextNode = th.normalize(target, tPOS);
 									break;
@@ -515,7 +704,9 @@ public class GraphNavigation {
 	
 						if (!match){																					
 							//Get all the roles linked to the this supertype, in the selected synsets
+							start = System.nanoTime();
 							List<String> allRoles = dg.getRolesBySupertype(bestSynsets, firstSupertype);
+							stats.countRoleQuery(start);
 	
 							//Get the most similar roles w.r.t. the target
 							List<String> roles = new ArrayList<String>();
@@ -523,7 +714,7 @@ public class GraphNavigation {
 								roles.add(role.split(";")[0]);
 							}
 	
-							List<String> bestRoles = getBestMatches(th.normalize(target, tPOS).replaceAll("_", " "), roles, false);
+							List<String> bestRoles = getBestMatches(th.normalize(target, tPOS).replaceAll("_", " "), roles, false, deadline, stats);
 	
 							for (int l=0; l < bestRoles.size(); l++){ //put the role name back
 								for (String role : allRoles){
@@ -535,30 +726,26 @@ public class GraphNavigation {
 							}	
 	
 							//Put the supertype in the current path
-							pathEnd = currentPath.get(currentPath.size()-1).split(";")[0];
-							lastNode = pathEnd.contains("#") ? pathEnd.split("#")[0] : pathEnd;
-							currentPath.add(firstSupertype + "#" + pos + ";supertype of " + lastNode);
+							lastNode = currentPath.getNode();
+							currentPath = currentPath.extend(firstSupertype, pos, Role.SUPERTYPE, lastNode);
 	
 							//Work on the first role and put all the other ones in the stack to be processed later								
-							for (int j=1; j < bestRoles.size(); j++){
-								Vector<String> altPath = (Vector<String>) currentPath.clone();
+							for (int j=1; j < bestRoles.size() && System.currentTimeMillis() <= deadline && !stop.get(); j++){
+								PathNode altPath = currentPath;
 	
 								//Get the role's head words and create a new path for each of them, to be processed later
 								if (!bestRoles.get(j).endsWith(";has_supertype")){
-									altPath.add(bestRoles.get(j));
+									altPath = altPath.extendRole(bestRoles.get(j));
 									String text = bestRoles.get(j).split(";")[0];
 									
 									try {
-										List<String> chunks = th.split(text);
-										List<String> headWords = getHeadWords(chunks, th.normalize(target, tPOS).replaceAll("_", " "), true);
+										List<String> chunks = getCandidates(text, stats);
+										List<String> headWords = getHeadWords(chunks, th.normalize(target, tPOS).replaceAll("_", " "), true, relatedness, budget, deadline, stats);
 										
 										for (int k=0; k < headWords.size(); k++){
-											Vector<String> altWordPath = (Vector<String>)altPath.clone();
-											altWordPath.add(headWords.get(k).replace(";", "#") + ";head");	
+											PathNode altWordPath = extendHead(altPath, headWords.get(k), Role.HEAD);
 		
-											if (!subpaths.contains(altWordPath)){
-												subpaths.push((Vector<String>)altWordPath.clone());													
-											}	
+											push(subpaths, altWordPath, relatedness.getOrDefault(headWords.get(k), 0.0));
 										}
 									}
 									catch (Exception e){
@@ -566,10 +753,7 @@ public class GraphNavigation {
 									}
 								}
 								else{
-									if (!subpaths.contains(altPath)){
-										subpaths.push((Vector<String>)altPath.clone());
-									}	
-									
+									push(subpaths, altPath, currentScore);
 								}
 							}
 	
@@ -578,27 +762,24 @@ public class GraphNavigation {
 							String firstRoleText = firstRole.split(";")[0];
 	
 							if (!firstRole.endsWith(";has_supertype")){
-								currentPath.add(firstRole);
+								currentPath = currentPath.extendRole(firstRole);
 								
 								try {
-									List<String> chunks = th.split(firstRoleText);								
-									List<String> headWords = getHeadWords(chunks, th.normalize(target, tPOS).replaceAll("_", " "), false);
+									List<String> chunks = getCandidates(firstRoleText, stats);								
+									List<String> headWords = getHeadWords(chunks, th.normalize(target, tPOS).replaceAll("_", " "), false, relatedness, budget, deadline, stats);
 									
 									//Work on the first head word and put all the other ones in the stack to be processed later
 									if (headWords.size()  > 0){
 										for (int k=1; k < headWords.size(); k++){
-											Vector<String> altWordPath = (Vector<String>) currentPath.clone();
-			
-											altWordPath.add(headWords.get(k).replace(";", "#") + ";head");
+											PathNode altWordPath = extendHead(currentPath, headWords.get(k), Role.HEAD);
 			
-											if (!subpaths.contains(altWordPath)){
-												subpaths.push((Vector<String>)altWordPath.clone());												
-											}
+											push(subpaths, altWordPath, relatedness.getOrDefault(headWords.get(k), 0.0));
 										}
 			
 										nextNode = headWords.get(0).split(";")[0].replaceAll(" ", "_");
 										pos = headWords.get(0).split(";")[1];
-										currentPath.add(headWords.get(0).replace(";", "#") + ";head");
+										currentPath = extendHead(currentPath, headWords.get(0), Role.HEAD);
+										currentScore = relatedness.getOrDefault(headWords.get(0), 0.0);
 									}	
 								}
 								catch (Exception e){
@@ -612,40 +793,55 @@ public class GraphNavigation {
 							if (nextNode.equals(th.normalize(target, tPOS))){
 								match = true;										
 							}
-							depth = (depth != maxDepth + 1) ? getPathDepth(currentPath) : depth;
+							else{
+								PathNode joined = meetBackward(currentPath, nextNode, backward, budget);
+								
+								if (joined != null){
+									currentPath = joined;
+									match = true;
+									nextNode = th.normalize(target, tPOS);
+								}
+							}
+							depth = (depth != maxDepth + 1) ? getPathDepth(currentPath, budget) : depth;
 						}
 					}
 				}	
 				else{
 					//If no synsets were found and the role being analyzed is a supertype, it could have been 
 					//misclassified (wrong combination of words); try again with its head words						
-					if (currentRole.contains("supertype") && nextNode.contains("_") && !nextNode.equals(lastSynsetNotFound)){
+					if ((currentRole == Role.SUPERTYPE || currentRole == Role.SUPERTYPE_HEAD) && nextNode.contains("_") && !nextNode.equals(lastSynsetNotFound)){
 						lastSynsetNotFound = nextNode;
 
 						try {
-							List<String> sptChunks = th.split(nextNode.replaceAll("_", " "));
-							List<String> sptHeadWords = getHeadWords(sptChunks, th.normalize(target, tPOS).replaceAll("_", " "), false);
+							List<String> sptChunks = getCandidates(nextNode.replaceAll("_", " "), stats);
+							List<String> sptHeadWords = getHeadWords(sptChunks, th.normalize(target, tPOS).replaceAll("_", " "), false, relatedness, budget, deadline, stats);
 
 							//Work on the first head word and put all the other ones in the stack to be processed later
 							if (sptHeadWords.size() > 0){
 								for (int k=1; k < sptHeadWords.size(); k++){
-									Vector<String> sptFixPath = (Vector<String>) currentPath.clone();
+									PathNode sptFixPath = extendHead(currentPath, sptHeadWords.get(k), Role.SUPERTYPE_HEAD);
 
-									sptFixPath.add(sptHeadWords.get(k).replace(";", "#") + ";supertype head");
-
-									if (!subpaths.contains(sptFixPath)){
-										subpaths.push((Vector<String>)sptFixPath.clone());							
-									}
+									push(subpaths, sptFixPath, relatedness.getOrDefault(sptHeadWords.get(k), 0.0));
 								}
 
 								nextNode = sptHeadWords.get(0).split(";")[0].replaceAll(" ", "_");
 								pos = sptHeadWords.get(0).split(";")[1];
-								currentPath.add(sptHeadWords.get(0).replace(";", "#") + ";supertype head");
+								currentPath = extendHead(currentPath, sptHeadWords.get(0), Role.SUPERTYPE_HEAD);
+								currentScore = relatedness.getOrDefault(sptHeadWords.get(0), 0.0);
 
 								if (nextNode.equals(th.normalize(target, tPOS))){
 									match = true;								
 								}
-								depth = getPathDepth(currentPath);
+								else{
+									PathNode joined = meetBackward(currentPath, nextNode, backward, budget);
+									
+									if (joined != null){
+										currentPath = joined;
+										match = true;
+										nextNode = th.normalize(target, tPOS);
+									}
+								}
+								depth = getPathDepth(currentPath, budget);
 							}	
 						}
 						catch (Exception e){
@@ -656,22 +852,56 @@ public class GraphNavigation {
 						break;
 					}	
 				}
+				
+				//In best-first mode, expand a single step and put the path back on the frontier,
+				//so that paths are always expanded in order of depth
+				if (bestFirst && !match && currentPath != stepStart && depth <= maxDepth && !isPruned(depth, bestDepth, ownBest, result)){
+					push(subpaths, currentPath, currentScore);
+					deferred = true;
+					break;
+				}
+			}
+			
+			if (deferred){
+				continue;
+			}
+			
+			if (expired){
+				if (stop.get()){
+					result.setBounded(true);
+				}
+				else{
+					result.setTimeLimited(true);
+					stats.countBudgetHit();
+				}
+				paths.addAll(candidates);
+				break;
 			}
 			
 			if (match){
-				currentPath.add(target + ";target");
+				currentPath = currentPath.extend(target, null, Role.TARGET);
 			}
 			else{
-				currentPath.add("null;null");
+				currentPath = currentPath.extend("null", null, Role.NULL);
 			}
 
-			currentPath = cleanPath(currentPath);
+			currentPath = currentPath.clean();
 
-			if (!paths.contains(currentPath)){
-				paths.add((Vector<String>)currentPath.clone());
+			//In best-first mode, a complete path goes back to the frontier and is only accepted when it comes out
+			//of it, i.e. when no pending path can end up shallower before cleaning
+			if (bestFirst){
+				if (match){
+					push(subpaths, currentPath, currentScore);
+					candidates.add(currentPath);
+				}
+			}
+			else if (found.add(currentPath)){
+				paths.add(currentPath);
 
-				if (currentPath.lastElement().equals(target + ";target")){
+				if (currentPath.getRole() == Role.TARGET){
 					targetReached = true;
+					ownBest = Math.min(ownBest, getPathDepth(currentPath, budget));
+					bestDepth.accumulateAndGet(ownBest, Math::min);
 				}
 			}
 
@@ -679,20 +909,30 @@ public class GraphNavigation {
 
 			//Stop if the max number of paths is reached and at least one valid path has already been found,
 			//or if the search limit was reached (probably indicating that there's no valid path)
-			if ((targetReached && totalPathsTried >= maxPaths) || totalPathsTried >= searchLimit){
+			if ((targetReached && totalPathsTried >= budget.getMaxPaths()) || totalPathsTried >= budget.getSearchLimit()){
+				stats.countBudgetHit();
+				break;
+			}
+			
+			//Stop once the forward and backward frontiers have met
+			if (bidirectional && targetReached){
 				break;
 			}
 		}
 
 		//Remove invalid paths
-		Predicate<Vector<String>> invalid = v -> v.lastElement().equals("null;null");
+		Predicate<PathNode> invalid = p -> p.getRole() == Role.NULL;
 		paths.removeIf(invalid);
+		
+		stats.countSearch();
+		stats.countPathsFound(paths.size());
+		stats.addSearchTime(searchStart);
 
-		return paths;			
+		return result;			
 	}
 
 	//Format the path that confirms the entailment to create a human-readable justification
-	private String writeJustification(Vector<String> path){
+	private String writeJustification(List<String> path){
 
 		String justification = new String();
 		String previousStep = path.get(0);
@@ -755,27 +995,199 @@ public class GraphNavigation {
 		return justification;
 	}
 	
-	//Compute and justify a single entailment by finding the best path among all paths found 
-	//for all source-target pairs
-	public EntailmentDecision computeEntailment(List<List<String>> pairs){
+	//Search the paths for all the source-target pairs at the same time. The searches share the best depth found so far,
+	//so every search keeps the paths as shallow as the best one. Once a pair has a path of the minimum depth, the
+	//searches of the pairs after it are stopped, and the ones before it are still awaited: the best path is then the
+	//first of the shallowest ones in the order of the pairs, as in a sequential search, whatever the timing of the
+	//threads. Pairs already searched in a previous call are taken from the results cache
+	private SearchResult searchPairs (List<List<String>> pairs, SearchBudget budget){
 		
-		EntailmentDecision decision = new EntailmentDecision();
-		Vector<Vector<String>> paths = new Vector<Vector<String>>();
+		SearchResult result = new SearchResult();
+		AtomicInteger bestDepth = new AtomicInteger(budget.getMaxDepth() + 1);
+		AtomicBoolean stop = new AtomicBoolean(false);
+		CompletionService<SearchResult> service = new ExecutorCompletionService<SearchResult>(pairSearch);
+		List<Future<SearchResult>> searches = new ArrayList<Future<SearchResult>>();
+		List<List<PathNode>> cached = new ArrayList<List<PathNode>>();
+		List<String> keys = new ArrayList<String>();
+		Map<Future<SearchResult>, Integer> indexes = new HashMap<Future<SearchResult>, Integer>();
+		int cutoff = pairs.size(); //first pair with a path of the minimum depth
 		
-		decision.setModel("GraphNavigation");
-
 		for (List<String> pair : pairs){
 			String source = pair.get(0).split("#")[0];
 			String sPOS = pair.get(0).split("#")[1];
 			String target = pair.get(1).split("#")[0];
 			String tPOS = pair.get(1).split("#")[1];
+			String key = getCacheKey(source, sPOS, target, tPOS, budget);
+			List<PathNode> paths = (key == null) ? null : pathCache.get(key);
+			
+			//Reuse the paths of a previous search of the same pair, which also bound the other searches
+			if (paths != null){
+				int shallowest = getShallowestDepth(paths, budget);
+				
+				bestDepth.accumulateAndGet(shallowest, Math::min);
+				cutoff = (shallowest <= minDepth) ? Math.min(cutoff, searches.size()) : cutoff;
+				searches.add(null);
+			}
+			else{
+				Future<SearchResult> search = service.submit(() -> findPaths(source, sPOS, target, tPOS, budget, bestDepth, stop));
+				
+				indexes.put(search, searches.size());
+				searches.add(search);
+			}
+			cached.add(paths);
+			keys.add(key);
+		}
+		
+		//Wait for the searches of the pairs before the cutoff, moving it back as shallower pairs finish
+		try{
+			for (int pending = indexes.size(); pending > 0 && !isSearched(searches, cutoff); pending--){
+				Future<SearchResult> search = service.take();
+				int index = indexes.get(search);
+				
+				try{
+					if (index < cutoff && getShallowestDepth(search.get().getPaths(), budget) <= minDepth){
+						cutoff = index;
+					}
+				}
+				catch (ExecutionException e){
+					//Reported when the results are gathered
+				}
+			}
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		
+		//Stop the searches still running, which all come after the cutoff. They return at their next step, with the
+		//paths and the counters so far, so that the work done for the pair is fully counted
+		stop.set(true);
+		
+		//Gather the results in the order of the pairs, so that ties are broken as in a sequential search
+		for (int i=0; i < searches.size(); i++){
+			Future<SearchResult> search = searches.get(i);
 			
-			paths.addAll(findPaths(source, sPOS, target, tPOS));
+			if (search == null){
+				result.getPaths().addAll(cached.get(i));
+				result.getStats().countCachedSearch();
+			}
+			else{
+				try{
+					SearchResult pairResult = search.get();
+					
+					result.getPaths().addAll(pairResult.getPaths());
+					result.setTimeLimited(result.isTimeLimited() || pairResult.isTimeLimited());
+					result.getStats().add(pairResult.getStats());
+					
+					//Store complete searches only: not stopped by the deadline, and never pruned or stopped because of
+					//a shallower path found for another pair
+					if (cachePaths && keys.get(i) != null && !pairResult.isTimeLimited() && !pairResult.isBounded()){
+						pathCache.put(keys.get(i), pairResult.getPaths());
+					}
+				}
+				catch (InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
+				catch (ExecutionException e){
+					e.getCause().printStackTrace();
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	//Check whether a path is deeper than the best path found by any search. When the search alone would have kept
+	//it (its own best path not being shallower), the result is marked as bounded by the other searches
+	private boolean isPruned (int depth, AtomicInteger bestDepth, int ownBest, SearchResult result){
+		
+		if (depth <= bestDepth.get()){
+			return false;
+		}
+		
+		if (depth <= ownBest){
+			result.setBounded(true);
+		}
+		return true;
+	}
+	
+	//Check whether the searches of all the pairs up to the given one are done
+	private boolean isSearched (List<Future<SearchResult>> searches, int last){
+		
+		for (int i=0; i <= last && i < searches.size(); i++){
+			if (searches.get(i) != null && !searches.get(i).isDone()){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	//Depth of the shallowest complete path, or max depth + 1 if there is none
+	private int getShallowestDepth (List<PathNode> paths, SearchBudget budget){
+		
+		int shallowest = budget.getMaxDepth() + 1;
+		
+		for (PathNode path : paths){
+			if (path.getRole() == Role.TARGET){
+				shallowest = Math.min(shallowest, getPathDepth(path, budget));
+			}
 		}
+		return shallowest;
+	}
+	
+	//Build the cache key of the search of a pair, or return null if there is no cache. Sources and targets are
+	//normalized, and the key also holds the knowledge base and the version of its graph, the budgets and the search modes
+	private String getCacheKey (String source, String sPOS, String target, String tPOS, SearchBudget budget){
+		
+		if (pathCache == null){
+			return null;
+		}
+		
+		String sTag = sPOS.startsWith("VB") ? "VB" : "NN";
+		String tTag = tPOS.startsWith("VB") ? "VB" : "NN";
+		String settings = budget.getLimitsKey() + "/" + (bidirectional ? "bi" : "uni") + "/" + (bestFirst ? "bestfirst" : "dfs")
+				+ (pruneStates ? "/pruned" : "");
+		
+		return PathCache.getKey(knowledgeBase, graphSignature, th.normalize(source, sTag), sTag, th.normalize(target, tTag), tTag, settings);
+	}
+	
+	//Write the cached search results to disk
+	public void saveCache (){
+		
+		if (pathCache != null){
+			pathCache.save();
+		}
+	}
+	
+	//Get the search budgets read from the configuration file
+	public SearchBudget getDefaultBudget (){
+		
+		return defaultBudget;
+	}
+	
+	//Compute and justify a single entailment by finding the best path among all paths found 
+	//for all source-target pairs
+	public EntailmentDecision computeEntailment(List<List<String>> pairs){
+		
+		return computeEntailment(pairs, defaultBudget);
+	}
+	
+	//Compute and justify a single entailment with specific search budgets. If any search was stopped by its deadline,
+	//the decision is based on the paths found until then and marked as time-limited
+	public EntailmentDecision computeEntailment(List<List<String>> pairs, SearchBudget budget){
+		
+		EntailmentDecision decision = new EntailmentDecision();
+		SearchResult result = searchPairs(pairs, budget);
+		List<PathNode> paths = result.getPaths();
+		
+		decision.setModel("GraphNavigation");
+		decision.setTimeLimited(result.isTimeLimited());
+		decision.setSearchStats(result.getStats());
 
 		if (!paths.isEmpty()){
-			Vector<String> bestPath = getShortestPath(paths);
-			String justification = writeJustification(bestPath);
+			long start = System.nanoTime();
+			PathNode bestPath = getShortestPath(paths, budget);
+			String justification = writeJustification(bestPath.toStrings());
+			result.getStats().addJustificationTime(start);
 			
 			decision.setDecision("yes");
 			decision.setJustification(justification);
@@ -0,0 +1,168 @@
+package models;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+//Results of the graph navigation searches, stored by source-target pair. An empty list of paths means that no path
+//was found. The least recently used results are evicted once the cache is full, and the cache can be written to disk
+//so that later runs start with the results of the previous ones
+public class PathCache {
+
+	private final String cacheFile;
+	private final Map<String, List<List<List<String>>>> entries;
+	private boolean modified = false;
+
+	@SuppressWarnings("serial")
+	public PathCache (String file, int capacity){
+
+		cacheFile = file;
+		entries = new LinkedHashMap<String, List<List<List<String>>>>(16, 0.75f, true){
+			@Override
+			protected boolean removeEldestEntry (Map.Entry<String, List<List<List<String>>>> eldest){
+				return size() > capacity;
+			}
+		};
+
+		load();
+	}
+
+	//Identify the version of a graph file by its size and modification time
+	public static String getSignature (String graphFile){
+
+		if (graphFile == null){
+			return "none";
+		}
+
+		File file = new File(graphFile);
+
+		return file.length() + "-" + file.lastModified();
+	}
+
+	//Build the key of a search from its normalized source and target, the knowledge base, the version of its graph
+	//and the search settings
+	public static String getKey (String kb, String graph, String source, String sPOS, String target, String tPOS, String settings){
+
+		return kb + "@" + graph + "|" + source + "#" + sPOS + "|" + target + "#" + tPOS + "|" + settings;
+	}
+
+	//Remove the results of a knowledge base that were found in another version of its graph, or written before the
+	//keys held the version of the graph
+	public synchronized void discardStale (String kb, String graph){
+
+		String knowledgeBase = kb + "@";
+		String current = knowledgeBase + graph + "|";
+		String unversioned = kb + "|";
+
+		if (entries.keySet().removeIf(key -> (key.startsWith(knowledgeBase) && !key.startsWith(current)) || key.startsWith(unversioned))){
+			modified = true;
+		}
+	}
+
+	//Get the paths found by a previous search, or null if the search is not in the cache
+	public synchronized List<PathNode> get (String key){
+
+		List<List<List<String>>> records = entries.get(key);
+
+		if (records == null){
+			return null;
+		}
+
+		List<PathNode> paths = new ArrayList<PathNode>(records.size());
+		for (List<List<String>> record : records){
+			paths.add(PathNode.fromRecord(record));
+		}
+		return paths;
+	}
+
+	public synchronized void put (String key, List<PathNode> paths){
+
+		List<List<List<String>>> records = new ArrayList<List<List<String>>>(paths.size());
+
+		for (PathNode path : paths){
+			records.add(path.toRecord());
+		}
+		entries.put(key, records);
+		modified = true;
+	}
+
+	public synchronized int size (){
+
+		return entries.size();
+	}
+
+	//Read the results written by a previous run, from the least to the most recently used
+	@SuppressWarnings("unchecked")
+	private void load (){
+
+		if (cacheFile == null || !new File(cacheFile).exists()){
+			return;
+		}
+
+		try (FileReader reader = new FileReader(cacheFile)){
+			JSONArray items = (JSONArray) new JSONParser().parse(reader);
+
+			for (Object item : items){
+				JSONArray entry = (JSONArray) item;
+				entries.put((String) entry.get(0), (List<List<List<String>>>) entry.get(1));
+			}
+		}
+		catch (IOException | ParseException | ClassCastException e){
+			e.printStackTrace();
+		}
+	}
+
+	//Write the results to disk, if any was added since the cache was read. They are written to a temporary file first,
+	//which then replaces the cache file, so that a crash while writing leaves the previous file as it was
+	@SuppressWarnings("unchecked")
+	public synchronized void save (){
+
+		if (cacheFile == null || !modified){
+			return;
+		}
+
+		JSONArray items = new JSONArray();
+
+		for (Map.Entry<String, List<List<List<String>>>> entry : entries.entrySet()){
+			JSONArray item = new JSONArray();
+			item.add(entry.getKey());
+			item.add(entry.getValue());
+			items.add(item);
+		}
+
+		Path target = Paths.get(cacheFile);
+		Path temp = Paths.get(cacheFile + ".tmp");
+
+		try{
+			try (FileWriter writer = new FileWriter(temp.toFile())){
+				writer.write(items.toJSONString());
+			}
+
+			try{
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e){
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			modified = false;
+		}
+		catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,332 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import util.SymbolTable;
+
+//A step of a navigation path. Paths are persistent: extending a path allocates a single node pointing to its
+//parent, so paths that share a prefix share its nodes. The words and texts of the steps are stored as IDs of a
+//table created with the first step of the path, so that the table lives only as long as the paths of one search
+public final class PathNode {
+	
+	public enum Role { SOURCE, SUPERTYPE, SUPERTYPE_HEAD, HEAD, SYNONYM, DEFINITION, TARGET, NULL }
+	
+	private static final SymbolTable tags = new SymbolTable();
+	private static final byte noPOS = -1;
+	
+	private final PathNode parent;
+	private final SymbolTable nodes;
+	private final int node;
+	private final byte pos;
+	private final Role role;
+	private final int qualifier;
+	private final int length;
+	private final int closedDepth;
+	private final int hash;
+	
+	private PathNode (PathNode prev, SymbolTable table, int n, byte p, Role r, int q, int stepHash){
+		
+		parent = prev;
+		nodes = table;
+		node = n;
+		pos = p;
+		role = r;
+		qualifier = q;
+		length = (prev == null) ? 1 : prev.length + 1;
+		closedDepth = (prev == null) ? 0 : prev.closedDepth + (prev.counts(r) ? 1 : 0);
+		hash = ((prev == null) ? 0 : prev.hash * 31) + stepHash;
+	}
+	
+	private PathNode (PathNode prev, SymbolTable table, String n, byte p, Role r, String q){
+		
+		this(prev, table, table.getId(n), p, r, (q == null) ? -1 : table.getId(q), hashStep(n, p, r, q));
+	}
+	
+	//Hash of a single step, taken from its strings so that it does not depend on the table of the path
+	private static int hashStep (String n, byte p, Role r, String q){
+		
+		return ((n.hashCode() * 31 + p) * 31 + r.ordinal()) * 31 + ((q == null) ? -1 : q.hashCode());
+	}
+	
+	//Hash of the last step of the path
+	private int stepHash (){
+		
+		return hash - ((parent == null) ? 0 : parent.hash * 31);
+	}
+	
+	//Create the first step of a path, along with the table of nodes shared by all the paths that extend it
+	public static PathNode source (String node, String pos){
+		
+		return new PathNode(null, new SymbolTable(), node, tag(pos), Role.SOURCE, null);
+	}
+	
+	//Create a detached step that shares the table of nodes of this path, to be appended later to its extensions
+	public PathNode step (String node, String pos, Role role, String qualifier){
+		
+		return new PathNode(null, nodes, node, tag(pos), role, qualifier);
+	}
+	
+	private static byte tag (String pos){
+		
+		return (pos == null) ? noPOS : (byte) tags.getId(pos);
+	}
+	
+	//Extend the path with a new step
+	public PathNode extend (String node, String pos, Role role){
+		
+		return extend(node, pos, role, null);
+	}
+	
+	//Extend the path with a new step qualified by another node (e.g. "supertype of <node>")
+	public PathNode extend (String node, String pos, Role role, String qualifier){
+		
+		return new PathNode(this, nodes, node, tag(pos), role, qualifier);
+	}
+	
+	//Extend the path with a role step, written as "text;role name"
+	public PathNode extendRole (String roleStep){
+		
+		String[] parts = roleStep.split(";");
+		
+		return new PathNode(this, nodes, parts[0], noPOS, Role.DEFINITION, parts[1]);
+	}
+	
+	//Extend the path with a copy of a detached step, whose nodes are looked up again if it comes from another table
+	public PathNode append (PathNode step){
+		
+		if (step.nodes == nodes){
+			return new PathNode(this, nodes, step.node, step.pos, step.role, step.qualifier, step.stepHash());
+		}
+		return new PathNode(this, nodes, step.getNode(), step.pos, step.role, step.getQualifier());
+	}
+	
+	public PathNode getParent (){
+		
+		return parent;
+	}
+	
+	public Role getRole (){
+		
+		return role;
+	}
+	
+	//Get the word or text of the node
+	public String getNode (){
+		
+		return nodes.getSymbol(node);
+	}
+	
+	private String getQualifier (){
+		
+		return (qualifier == -1) ? null : nodes.getSymbol(qualifier);
+	}
+	
+	//Get the POS tag of the node, or null if it has none
+	public String getPOS (){
+		
+		return (pos == noPOS) ? null : tags.getSymbol(pos);
+	}
+	
+	//Number of steps in the path
+	public int size (){
+		
+		return length;
+	}
+	
+	//Fingerprint of the whole path, computed incrementally
+	public int getFingerprint (){
+		
+		return hash;
+	}
+	
+	//Key of the search state reached by the path: its last node, POS and depth
+	public long getStateKey (){
+		
+		return ((long) node << 16) | ((pos & 0xFF) << 8) | (getDepth() & 0xFF);
+	}
+	
+	private boolean startsWithSupertype (){
+		
+		return role == Role.SUPERTYPE || role == Role.SUPERTYPE_HEAD;
+	}
+	
+	//Whether this step counts as a visited node, given the role of the step that follows it
+	private boolean counts (Role next){
+		
+		if (role == Role.SOURCE || role == Role.SUPERTYPE_HEAD || role == Role.HEAD || role == Role.SYNONYM){
+			return false;
+		}
+		if (role != Role.SUPERTYPE){
+			return true;
+		}
+		
+		boolean previousIsSource = (parent == null || parent.role == Role.SOURCE);
+		
+		return next == Role.SUPERTYPE || ((next == Role.HEAD || next == Role.SUPERTYPE_HEAD) && previousIsSource);
+	}
+	
+	//Number of nodes visited in the path. The last step is evaluated as if it were followed by a step with its own role
+	public int getDepth (){
+		
+		return closedDepth + ((length > 1 && counts(role)) ? 1 : 0);
+	}
+	
+	//Least depth of a complete path that extends this one: the steps before the last one already count, whatever
+	//follows them, and the target step always counts. Cleaning the complete path can still remove steps
+	public int getMinDepth (){
+		
+		return (role == Role.TARGET || role == Role.NULL) ? getDepth() : closedDepth + 1;
+	}
+	
+	private boolean sameStep (PathNode other){
+		
+		if (pos != other.pos || role != other.role){
+			return false;
+		}
+		if (nodes == other.nodes){
+			return node == other.node && qualifier == other.qualifier;
+		}
+		return getNode().equals(other.getNode()) && Objects.equals(getQualifier(), other.getQualifier());
+	}
+	
+	//List the steps of the path, from the source to the end
+	public List<PathNode> getSteps (){
+		
+		PathNode[] steps = new PathNode[length];
+		PathNode current = this;
+		
+		for (int i=length-1; i >= 0; i--){
+			steps[i] = current;
+			current = current.parent;
+		}
+		
+		List<PathNode> list = new ArrayList<PathNode>(length);
+		for (PathNode step : steps){
+			list.add(step);
+		}
+		return list;
+	}
+	
+	//Take all the information that is no longer necessary off the path
+	public PathNode clean (){
+		
+		List<PathNode> path = getSteps();
+		PathNode newPath = path.get(0).append(path.get(1)); //source and source's supertype
+		
+		//Remove circular references and consecutive duplicated steps in the path
+		for (int i=2; i < path.size()-1; i++){
+			PathNode step = path.get(i);
+			PathNode previousStep = path.get(i-1);
+			PathNode nextStep = path.get(i+1);
+			boolean selfSupertype = step.role == Role.SUPERTYPE && step.qualifier == step.node;
+			
+			if (!step.sameStep(previousStep) && !step.sameStep(newPath)
+					&& (!selfSupertype || !nextStep.startsWithSupertype())
+					&& !previousStep.sameStep(nextStep)){
+				newPath = newPath.append(step);
+			}
+		}
+		
+		return newPath.append(path.get(path.size()-1)); //target
+	}
+	
+	//Write a single step as "node#POS;role"
+	private String writeStep (){
+		
+		String text = getNode() + ((pos == noPOS) ? "" : "#" + getPOS()) + ";";
+		
+		switch (role){
+			case SOURCE: return text + "source";
+			case SUPERTYPE: return text + "supertype of " + nodes.getSymbol(qualifier);
+			case SUPERTYPE_HEAD: return text + "supertype head";
+			case HEAD: return text + "head";
+			case SYNONYM: return text + "synonym of " + nodes.getSymbol(qualifier);
+			case DEFINITION: return text + nodes.getSymbol(qualifier);
+			case TARGET: return text + "target";
+			default: return text + "null";
+		}
+	}
+	
+	//Write the path as a list of "node#POS;role" strings
+	public List<String> toStrings (){
+		
+		List<String> strings = new ArrayList<String>(length);
+		
+		for (PathNode step : getSteps()){
+			strings.add(step.writeStep());
+		}
+		return strings;
+	}
+	
+	//Write each step as its node, POS, role and qualifier, with empty strings for the missing ones, so that the path
+	//can be rebuilt by fromRecord
+	public List<List<String>> toRecord (){
+		
+		List<List<String>> record = new ArrayList<List<String>>(length);
+		
+		for (PathNode step : getSteps()){
+			List<String> fields = new ArrayList<String>(4);
+			
+			fields.add(step.getNode());
+			fields.add((step.pos == noPOS) ? "" : step.getPOS());
+			fields.add(step.role.name());
+			fields.add((step.qualifier == -1) ? "" : step.getQualifier());
+			record.add(fields);
+		}
+		return record;
+	}
+	
+	//Rebuild a path written by toRecord
+	public static PathNode fromRecord (List<List<String>> record){
+		
+		SymbolTable table = new SymbolTable();
+		PathNode path = null;
+		
+		for (List<String> fields : record){
+			byte p = fields.get(1).isEmpty() ? noPOS : tag(fields.get(1));
+			String q = fields.get(3).isEmpty() ? null : fields.get(3);
+			
+			path = new PathNode(path, table, fields.get(0), p, Role.valueOf(fields.get(2)), q);
+		}
+		return path;
+	}
+	
+	@Override
+	public int hashCode (){
+		
+		return hash;
+	}
+	
+	@Override
+	public boolean equals (Object obj){
+		
+		if (this == obj){
+			return true;
+		}
+		if (!(obj instanceof PathNode)){
+			return false;
+		}
+		
+		PathNode a = this;
+		PathNode b = (PathNode) obj;
+		
+		if (a.hash != b.hash || a.length != b.length){
+			return false;
+		}
+		
+		while (a != null){
+			if (a == b){
+				return true;
+			}
+			if (!a.sameStep(b)){
+				return false;
+			}
+			a = a.parent;
+			b = b.parent;
+		}
+		return true;
+	}
+	
+}
@@ -0,0 +1,108 @@
+package models;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ted.TreeNode;
+
+//Approximate tree distance based on pq-grams: each tree is described by the bag of its subtrees made of a node with
+//its p-1 closest ancestors and q consecutive children, and two trees are as distant as their bags are different.
+//Building a bag takes linear time
+public class PqGramDistance {
+
+	private static final String none = "*";
+	private static final String separator = "\u0001";
+	private final int p;
+	private final int q;
+
+	public PqGramDistance (int pSize, int qSize){
+
+		p = pSize;
+		q = qSize;
+	}
+
+	//Get the bag of pq-grams of a tree, each one written as its labels joined by a separator
+	public Map<String, Integer> getProfile (TreeNode tree){
+
+		Map<String, Integer> profile = new HashMap<String, Integer>();
+		String[] ancestors = new String[p];
+
+		for (int i=0; i < p; i++){
+			ancestors[i] = none;
+		}
+
+		addGrams(tree, ancestors, profile);
+
+		return profile;
+	}
+
+	private String[] shift (String[] register, String label){
+
+		String[] shifted = new String[register.length];
+
+		System.arraycopy(register, 1, shifted, 0, register.length - 1);
+		shifted[register.length - 1] = label;
+
+		return shifted;
+	}
+
+	private void addGram (String[] ancestors, String[] siblings, Map<String, Integer> profile){
+
+		StringBuilder gram = new StringBuilder();
+
+		for (String label : ancestors){
+			gram.append(label).append(separator);
+		}
+		for (String label : siblings){
+			gram.append(label).append(separator);
+		}
+		profile.merge(gram.toString(), 1, Integer::sum);
+	}
+
+	private void addGrams (TreeNode node, String[] ancestors, Map<String, Integer> profile){
+
+		String[] stem = shift(ancestors, node.getLabel());
+		String[] siblings = new String[q];
+		List<TreeNode> children = node.getChildren();
+
+		for (int i=0; i < q; i++){
+			siblings[i] = none;
+		}
+
+		if (children.isEmpty()){
+			addGram(stem, siblings, profile);
+			return;
+		}
+
+		for (TreeNode child : children){
+			siblings = shift(siblings, child.getLabel());
+			addGram(stem, siblings, profile);
+			addGrams(child, stem, profile);
+		}
+		for (int i=1; i < q; i++){
+			siblings = shift(siblings, none);
+			addGram(stem, siblings, profile);
+		}
+	}
+
+	//Normalized pq-gram distance between two trees, from 0 (same bags) to 1 (no pq-gram in common)
+	public float computeDistance (TreeNode t1, TreeNode t2){
+
+		Map<String, Integer> profile1 = getProfile(t1);
+		Map<String, Integer> profile2 = getProfile(t2);
+		int size = 0;
+		int common = 0;
+
+		for (Map.Entry<String, Integer> gram : profile1.entrySet()){
+			size += gram.getValue();
+			common += Math.min(gram.getValue(), profile2.getOrDefault(gram.getKey(), 0));
+		}
+		for (int count : profile2.values()){
+			size += count;
+		}
+
+		return (size == 0) ? 0 : 1 - (2.0f * common) / size;
+	}
+
+}
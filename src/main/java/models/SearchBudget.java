@@ -0,0 +1,121 @@
+package models;
+
+import util.Configuration;
+
+public class SearchBudget {
+	
+	private int maxEntries = 5;
+	private int maxDepth = 5;
+	private int maxPaths = 100;
+	private int searchLimit = 200;
+	private long timeout = 0; //milliseconds per source-target pair, 0 for no limit
+	
+	//Default budgets
+	public SearchBudget (){
+		
+	}
+	
+	//Read the budgets from the configuration file, keeping the defaults for the missing ones
+	public SearchBudget (Configuration config){
+		
+		maxEntries = getParam(config, "gnmaxentries", maxEntries);
+		maxDepth = getParam(config, "gnmaxdepth", maxDepth);
+		maxPaths = getParam(config, "gnmaxpaths", maxPaths);
+		searchLimit = getParam(config, "gnsearchlimit", searchLimit);
+		timeout = getLongParam(config, "gntimeout", timeout);
+	}
+	
+	//Copy a budget, so that it can be overridden for a single request
+	public SearchBudget (SearchBudget budget){
+		
+		maxEntries = budget.maxEntries;
+		maxDepth = budget.maxDepth;
+		maxPaths = budget.maxPaths;
+		searchLimit = budget.searchLimit;
+		timeout = budget.timeout;
+	}
+	
+	private int getParam (Configuration config, String name, int defaultValue){
+		
+		String value = config.params.get(name);
+		
+		return (value == null) ? defaultValue : Integer.parseInt(value.trim());
+	}
+	
+	private long getLongParam (Configuration config, String name, long defaultValue){
+		
+		String value = config.params.get(name);
+		
+		return (value == null) ? defaultValue : Long.parseLong(value.trim());
+	}
+	
+	//Maximum number of source-target pairs, and of head words taken from each role
+	public void setMaxEntries (int e){
+		
+		maxEntries = e;
+	}
+	
+	//Maximum number of nodes visited in a path
+	public void setMaxDepth (int d){
+		
+		maxDepth = d;
+	}
+	
+	//Number of paths tried before the search stops, once the target has been reached
+	public void setMaxPaths (int p){
+		
+		maxPaths = p;
+	}
+	
+	//Number of paths tried before the search gives up
+	public void setSearchLimit (int l){
+		
+		searchLimit = l;
+	}
+	
+	//Time limit of the search for a single source-target pair, in milliseconds (0 for no limit)
+	public void setTimeout (long t){
+		
+		timeout = t;
+	}
+	
+	public int getMaxEntries (){
+		
+		return maxEntries;
+	}
+	
+	public int getMaxDepth (){
+		
+		return maxDepth;
+	}
+	
+	public int getMaxPaths (){
+		
+		return maxPaths;
+	}
+	
+	public int getSearchLimit (){
+		
+		return searchLimit;
+	}
+	
+	public long getTimeout (){
+		
+		return timeout;
+	}
+	
+	//Identify the budget, e.g. as part of a cache key
+	@Override
+	public String toString (){
+		
+		return maxEntries + "/" + maxDepth + "/" + maxPaths + "/" + searchLimit + "/" + timeout;
+	}
+	
+	//Budgets that bound the paths a complete search can find. The timeout is left out, since searches stopped by
+	//their deadline are not reused
+	public String getLimitsKey (){
+		
+		return maxEntries + "/" + maxDepth + "/" + maxPaths + "/" + searchLimit;
+	}
+	
+}
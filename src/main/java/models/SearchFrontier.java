@@ -0,0 +1,98 @@
+package models;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+//Paths waiting to be expanded by the graph navigation: a stack for depth-first search, or a queue ordered by
+//the least depth the paths can reach (shallowest first) and relatedness to the target (highest first) for
+//best-first search
+public class SearchFrontier {
+	
+	private static class Entry {
+		
+		private final PathNode path;
+		private final int depth;
+		private final double score;
+		private final long order;
+		
+		private Entry (PathNode p, int d, double s, long o){
+			
+			path = p;
+			depth = d;
+			score = s;
+			order = o;
+		}
+	}
+	
+	//Among paths with the same depth and score, the most recent one comes first, as in the stack
+	private static final Comparator<Entry> byDepth = Comparator.<Entry>comparingInt(e -> e.depth)
+			.thenComparing(Comparator.<Entry>comparingDouble(e -> e.score).reversed())
+			.thenComparing(Comparator.<Entry>comparingLong(e -> e.order).reversed());
+	
+	private final boolean bestFirst;
+	private final Deque<PathNode> stack = new ArrayDeque<PathNode>();
+	private final PriorityQueue<Entry> queue = new PriorityQueue<Entry>(byDepth);
+	private final Set<PathNode> queued = new HashSet<PathNode>();
+	private long pushed = 0;
+	private double lastScore = 0.0;
+	
+	public SearchFrontier (boolean bf){
+		
+		bestFirst = bf;
+	}
+	
+	//Add a path to the frontier, unless an identical path is already waiting there
+	public boolean push (PathNode path, int depth, double score){
+		
+		if (!queued.add(path)){
+			return false;
+		}
+		
+		if (bestFirst){
+			queue.add(new Entry(path, depth, score, pushed++));
+		}
+		else{
+			stack.push(path);
+		}
+		return true;
+	}
+	
+	//Remove the next path to be expanded
+	public PathNode pop (){
+		
+		PathNode path;
+		
+		if (bestFirst){
+			Entry entry = queue.poll();
+			path = entry.path;
+			lastScore = entry.score;
+		}
+		else{
+			path = stack.pop();
+		}
+		queued.remove(path);
+		
+		return path;
+	}
+	
+	//Relatedness score of the last path removed (always zero in depth-first mode)
+	public double getLastScore (){
+		
+		return lastScore;
+	}
+	
+	public boolean isEmpty (){
+		
+		return queued.isEmpty();
+	}
+	
+	public int size (){
+		
+		return queued.size();
+	}
+	
+}
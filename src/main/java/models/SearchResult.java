@@ -0,0 +1,50 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import data.SearchStats;
+
+public class SearchResult {
+	
+	private List<PathNode> paths = new ArrayList<PathNode>();
+	private boolean timeLimited = false;
+	private boolean bounded = false;
+	private SearchStats stats = new SearchStats();
+	
+	//Valid paths found between the source and the target
+	public List<PathNode> getPaths (){
+		
+		return paths;
+	}
+	
+	//Whether the search was stopped by its deadline, returning only the paths found until then
+	public boolean isTimeLimited (){
+		
+		return timeLimited;
+	}
+	
+	public void setTimeLimited (boolean t){
+		
+		timeLimited = t;
+	}
+	
+	//Whether the search skipped paths because of a shallower path found by another search, so that it may miss paths
+	//that it would have found on its own
+	public boolean isBounded (){
+		
+		return bounded;
+	}
+	
+	public void setBounded (boolean b){
+		
+		bounded = b;
+	}
+	
+	//Counters of the work done by the search
+	public SearchStats getStats (){
+		
+		return stats;
+	}
+	
+}
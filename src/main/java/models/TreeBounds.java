@@ -0,0 +1,102 @@
+package models;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ted.TreeNode;
+
+//Cheap bounds of the tree edit distance, used to skip the exact computation when they are enough to take a decision
+public class TreeBounds {
+
+	private final float delCost;
+	private final float insCost;
+	private final float repCost;
+
+	public TreeBounds (float del, float ins, float rep){
+
+		delCost = del;
+		insCost = ins;
+		repCost = rep;
+	}
+
+	//Check whether two trees are identical, in which case their distance is zero
+	public boolean sameTree (TreeNode t1, TreeNode t2){
+
+		if (!t1.sameLabel(t2)){
+			return false;
+		}
+
+		List<TreeNode> children1 = t1.getChildren();
+		List<TreeNode> children2 = t2.getChildren();
+
+		if (children1.size() != children2.size()){
+			return false;
+		}
+
+		for (int i=0; i < children1.size(); i++){
+			if (!sameTree(children1.get(i), children2.get(i))){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void countLabels (TreeNode tree, Map<String, Integer> counts, int delta){
+
+		counts.merge(tree.getLabel(), delta, Integer::sum);
+
+		for (TreeNode child : tree.getChildren()){
+			countLabels(child, counts, delta);
+		}
+	}
+
+	//Lower bound from the label bags: the x labels of the first tree and the y labels of the second one that have no
+	//counterpart must be renamed in pairs, deleted or inserted. With deletions and insertions costing 2 and renames
+	//costing 3, it is 2*max(x,y) + min(x,y). It is never lower than the bound from the size difference
+	public float lowerBound (TreeNode t1, TreeNode t2){
+
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+
+		countLabels(t1, counts, 1);
+		countLabels(t2, counts, -1);
+
+		int x = 0;
+		int y = 0;
+
+		for (int count : counts.values()){
+			if (count > 0){
+				x += count;
+			}
+			else{
+				y -= count;
+			}
+		}
+
+		int renamed = Math.min(x, y);
+
+		return renamed * Math.min(repCost, delCost + insCost) + (x - renamed) * delCost + (y - renamed) * insCost;
+	}
+
+	//Upper bound from a top-down mapping: the roots are mapped to each other, and so are the children in the same
+	//position, recursively; the subtrees left over are deleted or inserted
+	public float upperBound (TreeNode t1, TreeNode t2){
+
+		float cost = (t1.sameLabel(t2)) ? 0 : repCost;
+		List<TreeNode> children1 = t1.getChildren();
+		List<TreeNode> children2 = t2.getChildren();
+		int mapped = Math.min(children1.size(), children2.size());
+
+		for (int i=0; i < mapped; i++){
+			cost += upperBound(children1.get(i), children2.get(i));
+		}
+		for (int i=mapped; i < children1.size(); i++){
+			cost += children1.get(i).getNodeCount() * delCost;
+		}
+		for (int i=mapped; i < children2.size(); i++){
+			cost += children2.get(i).getNodeCount() * insCost;
+		}
+		return cost;
+	}
+
+}
@@ -0,0 +1,171 @@
+package models;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import graph.HeadWordCandidates;
+import ted.TreeNode;
+
+//Dependency trees of the sentences already parsed, so that each sentence is only parsed and converted once. The
+//trees read from disk are kept as bracketed strings until they are needed, and the new ones are written as
+//bracketed strings when the cache is saved. The least recently used sentences are evicted once the cache is full
+public class TreeCache {
+
+	private final String cacheFile;
+	private final Map<String, Entry> entries;
+	private boolean modified = false;
+
+	private static final class Entry {
+
+		private List<String> brackets;
+		private List<TreeNode> trees;
+	}
+
+	@SuppressWarnings("serial")
+	public TreeCache (String file, int capacity){
+
+		cacheFile = file;
+		entries = new LinkedHashMap<String, Entry>(16, 0.75f, true){
+			@Override
+			protected boolean removeEldestEntry (Map.Entry<String, Entry> eldest){
+				return size() > capacity;
+			}
+		};
+
+		load();
+	}
+
+	//Get the trees of a sentence, or null if the sentence is not in the cache
+	public synchronized List<TreeNode> get (String sentence){
+
+		Entry entry = entries.get(sentence);
+
+		if (entry == null){
+			return null;
+		}
+		if (entry.trees == null){
+			entry.trees = parse(entry.brackets);
+		}
+		return entry.trees;
+	}
+
+	//Store the trees of a sentence
+	public synchronized List<TreeNode> put (String sentence, List<TreeNode> trees){
+
+		Entry entry = new Entry();
+		entry.trees = trees;
+
+		entries.put(sentence, entry);
+		modified = true;
+
+		return trees;
+	}
+
+	private List<TreeNode> parse (List<String> brackets){
+
+		List<TreeNode> trees = new ArrayList<TreeNode>(brackets.size());
+
+		for (String tree : brackets){
+			trees.add(TreeNode.fromBracketString(tree));
+		}
+		return trees;
+	}
+
+	public synchronized int size (){
+
+		return entries.size();
+	}
+
+	//Read the trees written by a previous run: one sentence per line, followed by its trees, all tab-separated and
+	//escaped as in the head-word candidates file
+	private void load (){
+
+		if (cacheFile == null || !new File(cacheFile).exists()){
+			return;
+		}
+
+		try (BufferedReader br = new BufferedReader(new FileReader(cacheFile))){
+			String line = null;
+
+			while ((line = br.readLine()) != null){
+				String[] fields = line.split("\t");
+
+				if (fields.length > 1){
+					Entry entry = new Entry();
+					entry.brackets = new ArrayList<String>(fields.length - 1);
+
+					for (int i=1; i < fields.length; i++){
+						entry.brackets.add(HeadWordCandidates.unescape(fields[i]));
+					}
+					entries.put(HeadWordCandidates.unescape(fields[0]), entry);
+				}
+			}
+		}
+		catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+	//Write the trees to disk, if any sentence was added since the cache was read. They are written to a temporary file
+	//first, which then replaces the cache file, so that a crash while writing leaves the previous file as it was
+	public synchronized void save (){
+
+		if (cacheFile == null || !modified){
+			return;
+		}
+
+		Path target = Paths.get(cacheFile);
+		Path temp = Paths.get(cacheFile + ".tmp");
+
+		try{
+			try (FileWriter writer = new FileWriter(temp.toFile())){
+				for (Map.Entry<String, Entry> entry : entries.entrySet()){
+					writeEntry(writer, entry.getKey(), entry.getValue());
+				}
+			}
+
+			try{
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e){
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			modified = false;
+		}
+		catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+	//Write a sentence and its trees as a single line
+	private void writeEntry (FileWriter writer, String sentence, Entry value) throws IOException{
+
+		if (value.brackets == null){
+			value.brackets = new ArrayList<String>(value.trees.size());
+
+			for (TreeNode tree : value.trees){
+				value.brackets.add(tree.toBracketString());
+			}
+		}
+
+		writer.write(HeadWordCandidates.escape(sentence));
+
+		for (String tree : value.brackets){
+			writer.write("\t" + HeadWordCandidates.escape(tree));
+		}
+		writer.write("\n");
+	}
+
+}
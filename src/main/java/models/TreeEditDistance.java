@@ -1,23 +1,27 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
-import at.unisalzburg.dbresearch.apted.costmodel.PerEditOperationStringNodeDataCostModel;
-import at.unisalzburg.dbresearch.apted.distance.APTED;
-import at.unisalzburg.dbresearch.apted.node.Node;
-import at.unisalzburg.dbresearch.apted.node.StringNodeData;
-import at.unisalzburg.dbresearch.apted.parser.BracketStringInputParser;
 import data.EntailmentDecision;
 import edu.stanford.nlp.pipeline.CoreDocument;
 import edu.stanford.nlp.pipeline.CoreSentence;
 import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.semgraph.SemanticGraph;
 import edu.stanford.nlp.util.logging.RedwoodConfiguration;
+import ted.TreeNode;
+import ted.ZhangShasha;
 import util.Configuration;
 import util.TreeFormatter;
 
@@ -27,7 +31,14 @@ public class TreeEditDistance {
 	private final float insCost = 2;
 	private final float repCost = 3;
 	private float threshold;
+	private boolean screening;
+	private float pqLow = -1;
+	private float pqHigh = 2;
+	private PqGramDistance pqGrams = new PqGramDistance(2, 3);
+	private ZhangShasha editDistance = new ZhangShasha(delCost, insCost, repCost);
 	private StanfordCoreNLP pipeline;
+	private static TreeCache treeCache;
+	private volatile boolean cacheTrees = true;
 	
 	public TreeEditDistance(String configfile){
 		
@@ -38,6 +49,19 @@ public class TreeEditDistance {
 		Configuration config = new Configuration(configfile);
 		threshold = Float.parseFloat(config.params.get("tedthreshold"));
 		
+		//Read the pq-gram cutoffs learned with the threshold, used to screen the clear cases in screening mode
+		screening = Boolean.parseBoolean(config.params.get("tedscreening"));
+		if (config.params.get("tedpqlow") != null && config.params.get("tedpqhigh") != null){
+			pqLow = Float.parseFloat(config.params.get("tedpqlow"));
+			pqHigh = Float.parseFloat(config.params.get("tedpqhigh"));
+		}
+		
+		//Open the cache of parsed sentences the first time, so that it is shared by all instances
+		if (treeCache == null){
+			String size = config.params.get("tedcachesize");
+			treeCache = new TreeCache(config.params.get("tedcache"), (size == null) ? 5000 : Integer.parseInt(size.trim()));
+		}
+		
 		//Initialize the dependency parser
 		Properties props = new Properties();
 		props.setProperty("annotators", "tokenize, ssplit, pos, lemma, parse, depparse");
@@ -46,25 +70,51 @@ public class TreeEditDistance {
 	    RedwoodConfiguration.current().clear().apply();
 	}
 	
-	//Get the dependency parse of a piece of text and convert each sentence to a bracketed-style tree
-	private List<String> makeTree (String text){
+	//Get the dependency parse of a piece of text and convert each sentence to a tree
+	private List<TreeNode> makeTree (String text){
 		
-		List<String> trees = new ArrayList<String>();
+		List<TreeNode> trees = new ArrayList<TreeNode>();
+		TreeFormatter formatter = new TreeFormatter();
 		
 		CoreDocument document = new CoreDocument(text);
 		pipeline.annotate(document);
 		
 		for (CoreSentence sentence : document.sentences()){
 			SemanticGraph dependencyParse = sentence.dependencyParse();
-			TreeFormatter formatter = new TreeFormatter();
-		
-			String tree = formatter.convertToTree(dependencyParse);
-			trees.add(tree);
+			TreeNode tree = formatter.convertToNode(dependencyParse);
+			
+			if (tree != null){
+				trees.add(tree);
+			}
 		}	
 		
 		return trees;
 	}
 	
+	//Get the trees of a piece of text, parsing it only if it is not in the cache
+	private List<TreeNode> getTrees (String text){
+		
+		List<TreeNode> trees = treeCache.get(text);
+		
+		if (trees == null){
+			trees = cacheTrees ? treeCache.put(text, makeTree(text)) : makeTree(text);
+		}
+		return trees;
+	}
+	
+	//Whether the sentences parsed from now on are stored in the cache (turned off while the engine warms up, so that
+	//the sample sentences do not change the cache file)
+	public void setCacheTrees (boolean c){
+		
+		cacheTrees = c;
+	}
+	
+	//Write the cached trees to disk
+	public void saveCache (){
+		
+		treeCache.save();
+	}
+	
 	//Normalize the distance, returning a value relative to the difference between the sizes of the trees
 	private float normalizeDistance (float distance, int treeDiff){
 
@@ -79,22 +129,15 @@ public class TreeEditDistance {
 		
 		float minDist = Float.MAX_VALUE;
 		
-		BracketStringInputParser treeParser = new BracketStringInputParser();
-		List<String> textTrees = makeTree(text);
-		List<String> hypTrees = makeTree(hyp);
-		
-		PerEditOperationStringNodeDataCostModel costModel = new PerEditOperationStringNodeDataCostModel(delCost, insCost, repCost);
-		APTED<PerEditOperationStringNodeDataCostModel, StringNodeData> apted = new APTED<>(costModel);
+		List<TreeNode> textTrees = getTrees(text);
+		List<TreeNode> hypTrees = getTrees(hyp);
 		
 		//If the text and/or the hypothesis have more than one sentence and yields more than one tree,
 		//compute the TED between each text tree and each hypothesis tree, and get the minimum distance
-		for (String textTree : textTrees){
-			for (String hypTree : hypTrees){
+		for (TreeNode tTree : textTrees){
+			for (TreeNode hTree : hypTrees){
 				
-				Node<StringNodeData> tTree = treeParser.fromString(textTree);
-				Node<StringNodeData> hTree = treeParser.fromString(hypTree);
-		
-				float distance = apted.computeEditDistance(tTree, hTree);
+				float distance = editDistance.computeDistance(tTree, hTree);
 				int treeDiff = Math.abs(tTree.getNodeCount() - hTree.getNodeCount());
 				
 				distance = normalizeDistance(distance, treeDiff);
@@ -107,6 +150,88 @@ public class TreeEditDistance {
 		
 		return minDist;
 	}
+	
+	//Compute the approximate pq-gram distance between the trees of the text and the ones of the hypothesis
+	public float computeApproximateDistance (String text, String hyp){
+		
+		float minDist = Float.MAX_VALUE;
+		
+		for (TreeNode tTree : getTrees(text)){
+			for (TreeNode hTree : getTrees(hyp)){
+				minDist = Math.min(minDist, pqGrams.computeDistance(tTree, hTree));
+			}
+		}
+		
+		return minDist;
+	}
+	
+	//Compute the edit distances of many text-hypothesis pairs with several threads. The sentences not in the cache
+	//are parsed first, in one batch per thread; then each thread computes the distances of a share of the pairs, in
+	//its own workspace. The distances are returned in the order of the pairs; if any of them cannot be computed, an
+	//IllegalStateException is thrown
+	public float[] computeDistances (List<String> texts, List<String> hyps, int threads){
+		
+		float[] distances = new float[texts.size()];
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		
+		Set<String> sentences = new LinkedHashSet<String>(texts);
+		sentences.addAll(hyps);
+		sentences.removeIf(sentence -> treeCache.get(sentence) != null);
+		
+		List<List<String>> batches = new ArrayList<List<String>>();
+		for (int i=0; i < threads; i++){
+			batches.add(new ArrayList<String>());
+		}
+		
+		int count = 0;
+		for (String sentence : sentences){
+			batches.get(count++ % threads).add(sentence);
+		}
+		
+		List<Callable<Void>> parses = new ArrayList<Callable<Void>>();
+		for (List<String> batch : batches){
+			parses.add(() -> {
+				for (String sentence : batch){
+					getTrees(sentence);
+				}
+				return null;
+			});
+		}
+		
+		List<Callable<Void>> shares = new ArrayList<Callable<Void>>();
+		for (int t=0; t < threads; t++){
+			int first = t;
+			
+			shares.add(() -> {
+				for (int i=first; i < distances.length; i += threads){
+					distances[i] = computeDistance(texts.get(i), hyps.get(i));
+				}
+				return null;
+			});
+		}
+		
+		try{
+			for (Future<Void> parse : workers.invokeAll(parses)){
+				parse.get();
+			}
+			for (Future<Void> share : workers.invokeAll(shares)){
+				share.get();
+			}
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while computing the distances", e);
+		}
+		catch (ExecutionException e){
+			//Missing distances would be taken as zeros, so a failed pair stops the whole computation
+			throw new IllegalStateException("cannot compute the distances", e.getCause());
+		}
+		finally{
+			workers.shutdownNow();
+		}
+		
+		return distances;
+	}
 
 	
 	//Compute the tree edit distance between the text and the hypothesis
@@ -115,25 +240,42 @@ public class TreeEditDistance {
 		EntailmentDecision answer = new EntailmentDecision();
 		answer.setModel("EditDistance");
 		
-		BracketStringInputParser treeParser = new BracketStringInputParser();
-		PerEditOperationStringNodeDataCostModel costModel = new PerEditOperationStringNodeDataCostModel(delCost, insCost, repCost);
-		APTED<PerEditOperationStringNodeDataCostModel, StringNodeData> apted = new APTED<>(costModel);
+		//In screening mode, the pq-gram distance decides the clear cases; only the ones between the cutoffs go on
+		if (screening){
+			float approximate = computeApproximateDistance(text, hyp);
+			
+			if (approximate <= pqLow || approximate >= pqHigh){
+				setDecision(answer, approximate <= pqLow);
+				return answer;
+			}
+		}
 		
-		List<String> textTrees = makeTree(text);
-		List<String> hypTrees = makeTree(hyp);
+		TreeBounds bounds = new TreeBounds(delCost, insCost, repCost);
+		List<TreeNode> textTrees = getTrees(text);
+		List<TreeNode> hypTrees = getTrees(hyp);
 		float minDist = Float.MAX_VALUE;
 		
 		//If the text and/or the hypothesis have more than one sentence and yields more than one tree,
-		//compute the TED between each text tree and each hypothesis tree, and get the minimum distance
-		for (String textTree : textTrees){
-			for (String hypTree : hypTrees){
-				Node<StringNodeData> tTree = treeParser.fromString(textTree);
-				Node<StringNodeData> hTree = treeParser.fromString(hypTree);
-				
-				float distance = apted.computeEditDistance(tTree, hTree);
+		//compute the TED between each text tree and each hypothesis tree, and get the minimum distance. Only the
+		//decision is needed, so the exact distance is skipped whenever its bounds are on the same side of the threshold
+		for (TreeNode tTree : textTrees){
+			for (TreeNode hTree : hypTrees){
 				int treeDiff = Math.abs(tTree.getNodeCount() - hTree.getNodeCount());
+				float distance;
 				
-				distance = normalizeDistance(distance, treeDiff);
+				if (bounds.sameTree(tTree, hTree)){
+					distance = 0;
+				}
+				else if (normalizeDistance(bounds.lowerBound(tTree, hTree), treeDiff) > threshold){
+					continue;
+				}
+				else{
+					distance = normalizeDistance(bounds.upperBound(tTree, hTree), treeDiff);
+					
+					if (distance > threshold){
+						distance = normalizeDistance(editDistance.computeDistance(tTree, hTree), treeDiff);
+					}
+				}
 				
 				if (distance <= minDist){
 					minDist = distance;
@@ -141,7 +283,14 @@ public class TreeEditDistance {
 			}
 		}
 		
-		if (minDist <= threshold){
+		setDecision(answer, minDist <= threshold);
+		
+		return answer;
+	}
+	
+	private void setDecision (EntailmentDecision answer, boolean entails){
+		
+		if (entails){
 			answer.setDecision("yes");
 			answer.setJustification("Hypothesis is a syntactic variation of the text.");
 		}
@@ -149,8 +298,6 @@ public class TreeEditDistance {
 			answer.setDecision("no");
 			answer.setJustification("null");
 		}
-		
-		return answer;
 	}	
 
 }
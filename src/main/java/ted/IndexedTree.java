@@ -0,0 +1,78 @@
+package ted;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Array encoding of a tree in postorder: the label and label hash of each node, the leftmost leaf of the subtree rooted at each
+//node, and the keyroots (the root, and every node that has a left sibling), as used by the Zhang-Shasha algorithm
+public final class IndexedTree {
+
+	private final String[] labels;
+	private final int[] hashes;
+	private final int[] leftmost;
+	private final int[] keyroots;
+
+	public IndexedTree (TreeNode root){
+
+		int size = root.getNodeCount();
+
+		labels = new String[size];
+		hashes = new int[size];
+		leftmost = new int[size];
+		index(root, 0);
+
+		//A node is a keyroot if no node after it in postorder has the same leftmost leaf
+		boolean[] seen = new boolean[size];
+		List<Integer> roots = new ArrayList<Integer>();
+
+		for (int i=size-1; i >= 0; i--){
+			if (!seen[leftmost[i]]){
+				seen[leftmost[i]] = true;
+				roots.add(i);
+			}
+		}
+
+		keyroots = new int[roots.size()];
+		for (int i=0; i < keyroots.length; i++){
+			keyroots[i] = roots.get(keyroots.length - 1 - i);
+		}
+	}
+
+	//Number the nodes of a subtree in postorder, starting at a given index; returns the index after the subtree
+	private int index (TreeNode node, int next){
+
+		int first = next;
+
+		for (TreeNode child : node.getChildren()){
+			next = index(child, next);
+		}
+
+		labels[next] = node.getLabel();
+		hashes[next] = node.getLabelHash();
+		leftmost[next] = node.getChildren().isEmpty() ? next : leftmost[first];
+
+		return next + 1;
+	}
+
+	public int size (){
+
+		return labels.length;
+	}
+
+	//Whether a node of this tree and a node of another tree have the same label
+	boolean sameLabel (int node, IndexedTree other, int otherNode){
+
+		return hashes[node] == other.hashes[otherNode] && labels[node].equals(other.labels[otherNode]);
+	}
+
+	int getLeftmost (int node){
+
+		return leftmost[node];
+	}
+
+	int[] getKeyroots (){
+
+		return keyroots;
+	}
+
+}
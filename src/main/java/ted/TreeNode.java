@@ -0,0 +1,134 @@
+package ted;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//A labeled ordered tree. Labels are compared by their hash first and by their text only when the hashes match, so
+//no table of labels has to be shared by all the trees
+public class TreeNode {
+
+	private final String label;
+	private final int labelHash;
+	private final List<TreeNode> children = new ArrayList<TreeNode>();
+	private volatile IndexedTree indexed;
+
+	public TreeNode (String l){
+
+		label = l;
+		labelHash = l.hashCode();
+	}
+
+	public String getLabel (){
+
+		return label;
+	}
+
+	public int getLabelHash (){
+
+		return labelHash;
+	}
+
+	//Whether two nodes have the same label
+	public boolean sameLabel (TreeNode other){
+
+		return labelHash == other.labelHash && label.equals(other.label);
+	}
+
+	public List<TreeNode> getChildren (){
+
+		return children;
+	}
+
+	public TreeNode addChild (TreeNode child){
+
+		children.add(child);
+		indexed = null;
+
+		return this;
+	}
+
+	//Number of nodes in the tree rooted at this node
+	public int getNodeCount (){
+
+		int count = 1;
+
+		for (TreeNode child : children){
+			count += child.getNodeCount();
+		}
+		return count;
+	}
+
+	//Get the array encoding of the tree rooted at this node, built the first time it is needed
+	public IndexedTree getIndexedTree (){
+
+		IndexedTree tree = indexed;
+
+		if (tree == null){
+			tree = new IndexedTree(this);
+			indexed = tree;
+		}
+		return tree;
+	}
+
+	//Write the tree in bracketed style, e.g. {a{b}{c}}
+	public String toBracketString (){
+
+		StringBuilder bracket = new StringBuilder();
+
+		appendNode(this, bracket);
+
+		return bracket.toString();
+	}
+
+	private static void appendNode (TreeNode node, StringBuilder bracket){
+
+		bracket.append("{").append(node.label);
+
+		for (TreeNode child : node.children){
+			appendNode(child, bracket);
+		}
+		bracket.append("}");
+	}
+
+	//Read a tree written in bracketed style
+	public static TreeNode fromBracketString (String bracket){
+
+		List<TreeNode> open = new ArrayList<TreeNode>();
+		TreeNode root = null;
+		int i = 0;
+
+		while (i < bracket.length()){
+			char c = bracket.charAt(i);
+
+			if (c == '{'){
+				int end = i + 1;
+
+				while (end < bracket.length() && bracket.charAt(end) != '{' && bracket.charAt(end) != '}'){
+					end++;
+				}
+
+				TreeNode node = new TreeNode(bracket.substring(i + 1, end));
+
+				if (open.isEmpty()){
+					if (root != null){
+						break; //only the first tree is read
+					}
+					root = node;
+				}
+				else{
+					open.get(open.size() - 1).addChild(node);
+				}
+				open.add(node);
+				i = end;
+			}
+			else{
+				if (c == '}' && !open.isEmpty()){
+					open.remove(open.size() - 1);
+				}
+				i++;
+			}
+		}
+		return root;
+	}
+
+}
@@ -0,0 +1,103 @@
+package ted;
+
+//Tree edit distance computed with the Zhang-Shasha algorithm over array-encoded trees. Deleting and inserting a node
+//have fixed costs, and renaming costs nothing if the labels are the same. The DP tables are kept per thread and
+//reused across calls, growing when a larger pair of trees comes in
+public class ZhangShasha {
+
+	private final float delCost;
+	private final float insCost;
+	private final float renCost;
+	private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+	private static final class Workspace {
+
+		private float[] treeDist = new float[0];
+		private float[] forestDist = new float[0];
+
+		private void ensure (int n1, int n2){
+
+			if (treeDist.length < n1 * n2){
+				treeDist = new float[n1 * n2];
+			}
+			if (forestDist.length < (n1 + 1) * (n2 + 1)){
+				forestDist = new float[(n1 + 1) * (n2 + 1)];
+			}
+		}
+	}
+
+	public ZhangShasha (float del, float ins, float ren){
+
+		delCost = del;
+		insCost = ins;
+		renCost = ren;
+	}
+
+	public float computeDistance (TreeNode t1, TreeNode t2){
+
+		return computeDistance(t1.getIndexedTree(), t2.getIndexedTree());
+	}
+
+	public float computeDistance (IndexedTree t1, IndexedTree t2){
+
+		int n1 = t1.size();
+		int n2 = t2.size();
+		Workspace ws = workspaces.get();
+
+		ws.ensure(n1, n2);
+
+		for (int i : t1.getKeyroots()){
+			for (int j : t2.getKeyroots()){
+				computeForestDistance(t1, t2, i, j, ws.treeDist, ws.forestDist);
+			}
+		}
+		return ws.treeDist[(n1 - 1) * n2 + (n2 - 1)];
+	}
+
+	//Fill the distances between the forests of the subtrees rooted at two keyroots, storing the distances between
+	//the subtrees that share their leftmost leaves with the keyroots. Forest rows are indexed from the leftmost leaf
+	private void computeForestDistance (IndexedTree t1, IndexedTree t2, int i, int j, float[] treeDist, float[] forestDist){
+
+		int n2 = t2.size();
+		int li = t1.getLeftmost(i);
+		int lj = t2.getLeftmost(j);
+		int rows = i - li + 2;
+		int cols = j - lj + 2;
+
+		forestDist[0] = 0;
+
+		for (int x=1; x < rows; x++){
+			forestDist[x * cols] = forestDist[(x - 1) * cols] + delCost;
+		}
+		for (int y=1; y < cols; y++){
+			forestDist[y] = forestDist[y - 1] + insCost;
+		}
+
+		for (int x=1; x < rows; x++){
+			int di = li + x - 1;
+			int ldi = t1.getLeftmost(di);
+
+			for (int y=1; y < cols; y++){
+				int dj = lj + y - 1;
+				int ldj = t2.getLeftmost(dj);
+				float delete = forestDist[(x - 1) * cols + y] + delCost;
+				float insert = forestDist[x * cols + y - 1] + insCost;
+				float dist;
+
+				if (ldi == li && ldj == lj){
+					float rename = forestDist[(x - 1) * cols + y - 1] + (t1.sameLabel(di, t2, dj) ? 0 : renCost);
+
+					dist = Math.min(Math.min(delete, insert), rename);
+					treeDist[di * n2 + dj] = dist;
+				}
+				else{
+					float subtree = forestDist[(ldi - li) * cols + (ldj - lj)] + treeDist[di * n2 + dj];
+
+					dist = Math.min(Math.min(delete, insert), subtree);
+				}
+				forestDist[x * cols + y] = dist;
+			}
+		}
+	}
+
+}
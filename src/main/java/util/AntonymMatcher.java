@@ -0,0 +1,144 @@
+package util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+//Aho-Corasick automaton over the token sequences of all the terms that have antonyms in the lexicon (a multi-word
+//term such as "natural_object" is the sequence "natural", "object"). Each final state is keyed by the lexicon ID of
+//its term, so all the terms of a sentence are found in one pass over its tokens, and only whole tokens can match
+public class AntonymMatcher {
+
+	private final Lexicon lexicon;
+	private final List<Map<String, Integer>> transitions = new ArrayList<Map<String, Integer>>();
+	private final List<int[]> outputs = new ArrayList<int[]>();
+	private int[] fail;
+
+	public AntonymMatcher (Lexicon lex){
+
+		lexicon = lex;
+		addState();
+
+		for (int id=0; id < lexicon.size(); id++){
+			if (lexicon.hasAntonyms(id)){
+				addTerm(id, lexicon.getWord(id).split("_"));
+			}
+		}
+		buildFailureLinks();
+	}
+
+	private int addState (){
+
+		transitions.add(new HashMap<String, Integer>());
+		outputs.add(new int[0]);
+
+		return transitions.size() - 1;
+	}
+
+	private static int[] append (int[] ids, int[] more){
+
+		int[] merged = new int[ids.length + more.length];
+
+		System.arraycopy(ids, 0, merged, 0, ids.length);
+		System.arraycopy(more, 0, merged, ids.length, more.length);
+
+		return merged;
+	}
+
+	//Add the path of a term to the trie, keying its last state by the term ID
+	private void addTerm (int id, String[] tokens){
+
+		int state = 0;
+
+		for (String token : tokens){
+			Integer next = transitions.get(state).get(token);
+
+			if (next == null){
+				next = addState();
+				transitions.get(state).put(token, next);
+			}
+			state = next;
+		}
+		outputs.set(state, append(outputs.get(state), new int[]{id}));
+	}
+
+	//Link every state to the longest proper suffix of its token sequence that is also in the trie, breadth first,
+	//and add the terms ending at that suffix to the state's own terms
+	private void buildFailureLinks (){
+
+		fail = new int[transitions.size()];
+
+		Queue<Integer> queue = new ArrayDeque<Integer>();
+
+		for (int child : transitions.get(0).values()){
+			fail[child] = 0;
+			queue.add(child);
+		}
+
+		while (!queue.isEmpty()){
+			int state = queue.poll();
+
+			for (Map.Entry<String, Integer> transition : transitions.get(state).entrySet()){
+				int child = transition.getValue();
+				int link = fail[state];
+
+				while (link > 0 && !transitions.get(link).containsKey(transition.getKey())){
+					link = fail[link];
+				}
+
+				Integer target = transitions.get(link).get(transition.getKey());
+
+				fail[child] = (target == null) ? 0 : target;
+				outputs.set(child, append(outputs.get(child), outputs.get(fail[child])));
+				queue.add(child);
+			}
+		}
+	}
+
+	//Get the IDs of all the lexicon terms that occur in a sequence of tokens
+	public Set<Integer> findTerms (List<String> tokens){
+
+		Set<Integer> terms = new LinkedHashSet<Integer>();
+		int state = 0;
+
+		for (String token : tokens){
+			Integer next = transitions.get(state).get(token);
+
+			while (next == null && state > 0){
+				state = fail[state];
+				next = transitions.get(state).get(token);
+			}
+			state = (next == null) ? 0 : next;
+
+			for (int id : outputs.get(state)){
+				terms.add(id);
+			}
+		}
+		return terms;
+	}
+
+	//Check whether a term found in the first sequence of tokens is an antonym of a term found in the second one
+	public boolean hasOpposition (List<String> tokens1, List<String> tokens2){
+
+		Set<Integer> terms1 = findTerms(tokens1);
+
+		if (terms1.isEmpty()){
+			return false;
+		}
+
+		for (int term2 : findTerms(tokens2)){
+			for (int term1 : terms1){
+				if (lexicon.areAntonyms(term1, term2)){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
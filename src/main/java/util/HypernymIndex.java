@@ -0,0 +1,160 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+//Transitive ancestry of the noun and verb synsets of WordNet, loaded from a memory-mapped file written by
+//HypernymIndexBuilder. Synsets are numbered in postorder of a spanning forest of the hypernym DAG, and each one is
+//labeled with the sorted, disjoint intervals of the numbers it reaches going down (its own subtree, plus the
+//subtrees reached through its other hyponyms). A synset is an ancestor of another if the number of the latter falls
+//in one of its intervals, so there is no graph walk at query time
+public final class HypernymIndex {
+
+	private static final int magic = 0x58485950; //"XHYP"
+	private static final int version = 1;
+	private final StringTable lemmas;
+	private final IntBuffer senseOffsets;
+	private final IntBuffer senses;
+	private final IntBuffer intervalOffsets;
+	private final IntBuffer intervals;
+
+	//Lemmas, the synsets of each lemma in compressed rows keyed by lemma ID * 2 + POS (0 for nouns, 1 for verbs),
+	//and the intervals of each synset in compressed rows, as (low, high) pairs
+	HypernymIndex (StringTable l, IntBuffer so, IntBuffer s, IntBuffer io, IntBuffer i){
+
+		lemmas = l;
+		senseOffsets = so;
+		senses = s;
+		intervalOffsets = io;
+		intervals = i;
+	}
+
+	//Map an index file, or return null if it was not built
+	public static HypernymIndex load (String file){
+
+		ByteBuffer buffer = Snapshot.map(file);
+
+		if (buffer == null){
+			return null;
+		}
+
+		try{
+			if (buffer.getInt() != magic || buffer.getInt() != version){
+				throw new IllegalStateException("not a hypernym index");
+			}
+
+			StringTable l = StringTable.read(buffer);
+
+			buffer.position((buffer.position() + 7) & ~7);
+
+			int keys = buffer.getInt();
+			int senseCount = buffer.getInt();
+			IntBuffer so = Snapshot.section(buffer, (keys + 1) * 4).asIntBuffer();
+			IntBuffer s = Snapshot.section(buffer, senseCount * 4).asIntBuffer();
+
+			buffer.position((buffer.position() + 7) & ~7);
+
+			int synsets = buffer.getInt();
+			int intervalCount = buffer.getInt();
+			IntBuffer io = Snapshot.section(buffer, (synsets + 1) * 4).asIntBuffer();
+			IntBuffer i = Snapshot.section(buffer, intervalCount * 8).asIntBuffer();
+
+			return new HypernymIndex(l, so, s, io, i);
+		}
+		catch (RuntimeException e){
+			System.out.println("WARNING: invalid hypernym index " + file + " (" + e.getMessage() + ")");
+			return null;
+		}
+	}
+
+	public void write (String outputfile){
+
+		File file = new File(outputfile);
+
+		if (file.getParentFile() != null){
+			file.getParentFile().mkdirs();
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))){
+			out.writeInt(magic);
+			out.writeInt(version);
+			lemmas.write(out);
+			Snapshot.pad(out);
+			out.writeInt(senseOffsets.capacity() - 1);
+			out.writeInt(senses.capacity());
+			Snapshot.writeInts(out, senseOffsets);
+			Snapshot.writeInts(out, senses);
+			Snapshot.pad(out);
+			out.writeInt(intervalOffsets.capacity() - 1);
+			out.writeInt(intervals.capacity() / 2);
+			Snapshot.writeInts(out, intervalOffsets);
+			Snapshot.writeInts(out, intervals);
+		}
+		catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+	//Number of synsets in the index
+	public int size (){
+
+		return intervalOffsets.capacity() - 1;
+	}
+
+	//Check whether a synset is a proper ancestor of another one, with a binary search over its intervals
+	public boolean isAncestor (int ancestor, int synset){
+
+		if (ancestor == synset){
+			return false;
+		}
+
+		int low = intervalOffsets.get(ancestor);
+		int high = intervalOffsets.get(ancestor + 1) - 1;
+
+		while (low <= high){
+			int mid = (low + high) >>> 1;
+
+			if (synset < intervals.get(2 * mid)){
+				high = mid - 1;
+			}
+			else if (synset > intervals.get(2 * mid + 1)){
+				low = mid + 1;
+			}
+			else{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//Check whether some sense of a word is a hypernym, direct or not, of some sense of another word with the same
+	//part of speech (NN or VB). Words are lemmas, with multi-word expressions joined by underscores
+	public boolean isHypernym (String ancestor, String word, String pos){
+
+		int posIndex = pos.equals("NN") ? 0 : (pos.equals("VB") ? 1 : -1);
+		int ancestorId = lemmas.getId(ancestor.toLowerCase());
+		int wordId = lemmas.getId(word.toLowerCase());
+
+		if (posIndex < 0 || ancestorId < 0 || wordId < 0){
+			return false;
+		}
+
+		int ancestorKey = ancestorId * 2 + posIndex;
+		int wordKey = wordId * 2 + posIndex;
+
+		for (int i=senseOffsets.get(ancestorKey); i < senseOffsets.get(ancestorKey + 1); i++){
+			for (int j=senseOffsets.get(wordKey); j < senseOffsets.get(wordKey + 1); j++){
+				if (isAncestor(senses.get(i), senses.get(j))){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,245 @@
+package util;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.mit.jwi.Dictionary;
+import edu.mit.jwi.IDictionary;
+import edu.mit.jwi.item.ISynset;
+import edu.mit.jwi.item.ISynsetID;
+import edu.mit.jwi.item.IWord;
+import edu.mit.jwi.item.POS;
+import edu.mit.jwi.item.Pointer;
+
+//Build step that exports the noun and verb hypernym DAG of WordNet (hypernyms and instance hypernyms) into the
+//interval-labeled ancestry index read by HypernymIndex
+public class HypernymIndexBuilder {
+
+	private static final POS[] parts = {POS.NOUN, POS.VERB};
+	private final Map<ISynsetID, Integer> synsetIds = new HashMap<ISynsetID, Integer>();
+	private final List<List<Integer>> hyponyms = new ArrayList<List<Integer>>();
+	private final List<Boolean> roots = new ArrayList<Boolean>();
+	private final Map<String, Integer> lemmaIds = new HashMap<String, Integer>();
+	private final List<String> lemmaList = new ArrayList<String>();
+	private final Map<Integer, Set<Integer>> lemmaSenses = new HashMap<Integer, Set<Integer>>();
+
+	private int getSynsetId (ISynsetID synset){
+
+		Integer id = synsetIds.get(synset);
+
+		if (id == null){
+			id = hyponyms.size();
+			synsetIds.put(synset, id);
+			hyponyms.add(new ArrayList<Integer>());
+			roots.add(true);
+		}
+		return id;
+	}
+
+	private int getLemmaId (String lemma){
+
+		Integer id = lemmaIds.get(lemma);
+
+		if (id == null){
+			id = lemmaList.size();
+			lemmaList.add(lemma);
+			lemmaIds.put(lemma, id);
+		}
+		return id;
+	}
+
+	//Read the synsets, their lemmas and their hypernym links from the dictionary
+	private void readDictionary (IDictionary dict){
+
+		for (int p=0; p < parts.length; p++){
+			Iterator<ISynset> synsets = dict.getSynsetIterator(parts[p]);
+
+			while (synsets.hasNext()){
+				ISynset synset = synsets.next();
+				int id = getSynsetId(synset.getID());
+
+				for (IWord word : synset.getWords()){
+					int key = getLemmaId(word.getLemma().toLowerCase()) * 2 + p;
+
+					lemmaSenses.computeIfAbsent(key, k -> new LinkedHashSet<Integer>()).add(id);
+				}
+
+				List<ISynsetID> hypernyms = new ArrayList<ISynsetID>(synset.getRelatedSynsets(Pointer.HYPERNYM));
+				hypernyms.addAll(synset.getRelatedSynsets(Pointer.HYPERNYM_INSTANCE));
+
+				for (ISynsetID hypernym : hypernyms){
+					hyponyms.get(getSynsetId(hypernym)).add(id);
+					roots.set(id, false);
+				}
+			}
+		}
+	}
+
+	//Number the synsets in postorder of a depth-first traversal from the roots, going down the hyponym links. The
+	//first visit of a synset makes it part of the spanning forest, whose subtrees get consecutive numbers: low[s] is
+	//the first number in the subtree of s, and post[s] the number of s itself
+	private void numberSynsets (int[] low, int[] post){
+
+		int size = hyponyms.size();
+		int[] state = new int[size]; //0 not visited, 1 in the current path, 2 numbered
+		int[] next = new int[size];
+		int[] stack = new int[size];
+		int counter = 0;
+
+		for (int root=0; root < size; root++){
+			if (!roots.get(root) || state[root] != 0){
+				continue;
+			}
+
+			int top = 0;
+
+			stack[top] = root;
+			state[root] = 1;
+			low[root] = counter;
+
+			while (top >= 0){
+				int synset = stack[top];
+				List<Integer> children = hyponyms.get(synset);
+
+				if (next[synset] < children.size()){
+					int child = children.get(next[synset]++);
+
+					//Hyponyms already numbered are reached through their intervals; links back into the current
+					//path would be cycles, which are ignored
+					if (state[child] == 0){
+						state[child] = 1;
+						low[child] = counter;
+						stack[++top] = child;
+					}
+				}
+				else{
+					post[synset] = counter++;
+					state[synset] = 2;
+					top--;
+				}
+			}
+		}
+	}
+
+	//Merge a list of (low, high) intervals into sorted, disjoint ones
+	private static List<int[]> merge (List<int[]> list){
+
+		list.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+		List<int[]> merged = new ArrayList<int[]>();
+
+		for (int[] interval : list){
+			int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+
+			if (last != null && interval[0] <= last[1] + 1){
+				last[1] = Math.max(last[1], interval[1]);
+			}
+			else{
+				merged.add(new int[]{interval[0], interval[1]});
+			}
+		}
+		return merged;
+	}
+
+	public HypernymIndex build (IDictionary dict){
+
+		readDictionary(dict);
+
+		int size = hyponyms.size();
+		int[] low = new int[size];
+		int[] post = new int[size];
+		int[] byPost = new int[size];
+
+		numberSynsets(low, post);
+
+		for (int synset=0; synset < size; synset++){
+			byPost[post[synset]] = synset;
+		}
+
+		//In postorder, the hyponyms of a synset are labeled before the synset itself
+		List<List<int[]>> labels = new ArrayList<List<int[]>>();
+		int intervalCount = 0;
+
+		for (int number=0; number < size; number++){
+			int synset = byPost[number];
+			List<int[]> list = new ArrayList<int[]>();
+
+			list.add(new int[]{low[synset], number});
+
+			for (int child : hyponyms.get(synset)){
+				if (post[child] < number){
+					list.addAll(labels.get(post[child]));
+				}
+			}
+
+			List<int[]> merged = merge(list);
+
+			labels.add(merged);
+			intervalCount += merged.size();
+		}
+
+		int[] intervalOffsets = new int[size + 1];
+		int[] intervals = new int[2 * intervalCount];
+		int next = 0;
+
+		for (int number=0; number < size; number++){
+			intervalOffsets[number] = next;
+
+			for (int[] interval : labels.get(number)){
+				intervals[2 * next] = interval[0];
+				intervals[2 * next + 1] = interval[1];
+				next++;
+			}
+		}
+		intervalOffsets[size] = next;
+
+		//Senses of each lemma, by postorder number
+		int keys = lemmaList.size() * 2;
+		int[] senseOffsets = new int[keys + 1];
+		List<Integer> senses = new ArrayList<Integer>();
+
+		for (int key=0; key < keys; key++){
+			senseOffsets[key] = senses.size();
+
+			for (int synset : lemmaSenses.getOrDefault(key, new LinkedHashSet<Integer>())){
+				senses.add(post[synset]);
+			}
+		}
+		senseOffsets[keys] = senses.size();
+
+		return new HypernymIndex(StringTable.build(lemmaList), IntBuffer.wrap(senseOffsets),
+				IntBuffer.wrap(senses.stream().mapToInt(Integer::intValue).toArray()),
+				IntBuffer.wrap(intervalOffsets), IntBuffer.wrap(intervals));
+	}
+
+	//Export the hypernym index of the configured WordNet dictionary: <config file>
+	public static void main (String[] args){
+
+		Configuration config = new Configuration(args[0]);
+		String indexFile = config.params.get("hypernymindex");
+
+		try{
+			IDictionary dict = new Dictionary(new URL("file", null, config.params.get("wnpath")));
+			dict.open();
+
+			System.out.print("Exporting WordNet hypernyms... ");
+			HypernymIndex index = new HypernymIndexBuilder().build(dict);
+			index.write(indexFile);
+			System.out.println("Done. " + index.size() + " synsets written to " + indexFile);
+
+			dict.close();
+		}
+		catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+}
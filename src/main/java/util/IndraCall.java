@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -43,13 +44,23 @@ public class IndraCall {
 		return data;
 	}
 	
-	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@SuppressWarnings("rawtypes")
 	//Query Indra
 	public static List<Map> getResponse (String target, List<String> nodes) {
 		
+		return getResponse(target, nodes, 0);
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	//Query Indra, giving up after the given time in milliseconds (0 for no limit) with no scores
+	public static List<Map> getResponse (String target, List<String> nodes, long timeout) {
+		
 		List<Map> pairs = new ArrayList<Map>();
+		int limit = (int) Math.min(timeout, Integer.MAX_VALUE);
+		RequestConfig config = RequestConfig.custom().setConnectTimeout(limit).setConnectionRequestTimeout(limit)
+				.setSocketTimeout(limit).build();
 		
-		try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
+		try (CloseableHttpClient httpClient = HttpClientBuilder.create().setDefaultRequestConfig(config).build()) {
             HttpPost request = new HttpPost("http://alphard.fim.uni-passau.de:8916/relatedness");
             String data = buildJSON(target, nodes);
             StringEntity params = new StringEntity(data, "UTF-8");
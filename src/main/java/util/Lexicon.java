@@ -0,0 +1,504 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Synonym, antonym and hypernym tables in a single immutable store shared by all the models. Words are interned to
+//int IDs, each relation keeps the related IDs of every entry in one flat array, and membership tests are lookups of
+//the (entry, word) pair in a hash set of longs. All the tables live in buffers, so that they can be written to a
+//binary snapshot at build time and memory-mapped at startup instead of parsing the text resources
+public final class Lexicon {
+
+	private static final int magic = 0x584C4558; //"XLEX"
+	private static final int version = 1;
+	private static final String snapshotResource = "/lexicon.bin";
+	private static final String[] posTags = {"NN", "VB", "JJ", "RB"};
+	private final StringTable words;
+	private final Relation synonyms;
+	private final Relation antonyms;
+	private final Relation hypernyms;
+
+	//The lexicon is loaded the first time it is requested
+	private static final class Holder {
+
+		private static final Lexicon instance = load();
+	}
+
+	public static Lexicon getInstance (){
+
+		return Holder.instance;
+	}
+
+	private Lexicon (StringTable w, Relation syn, Relation ant, Relation hyp){
+
+		words = w;
+		synonyms = syn;
+		antonyms = ant;
+		hypernyms = hyp;
+	}
+
+	//Use the binary snapshot if it was built, or parse the text resources otherwise
+	private static Lexicon load (){
+
+		ByteBuffer snapshot = Snapshot.open(snapshotResource);
+
+		if (snapshot != null){
+			try{
+				return fromSnapshot(snapshot);
+			}
+			catch (RuntimeException e){
+				System.out.println("WARNING: invalid lexicon snapshot (" + e.getMessage() + "), parsing the text resources");
+			}
+		}
+		return fromResources();
+	}
+
+	//Parse the text resources
+	public static Lexicon fromResources (){
+
+		Map<String, Integer> wordIds = new HashMap<String, Integer>();
+		List<String> wordList = new ArrayList<String>();
+		Map<Integer, Set<Integer>> synTable = new HashMap<Integer, Set<Integer>>();
+		Map<Integer, Set<Integer>> antTable = new HashMap<Integer, Set<Integer>>();
+		Map<Integer, Set<Integer>> hypTable = new HashMap<Integer, Set<Integer>>();
+
+		readSynonyms("/synonyms.txt", wordIds, wordList, synTable);
+		readAntonyms("/antonyms.txt", wordIds, wordList, antTable);
+		readHypernyms("/hypernyms.txt", wordIds, wordList, hypTable);
+
+		int keys = wordList.size() * posTags.length;
+
+		return new Lexicon(StringTable.build(wordList), Relation.build(synTable, keys),
+				Relation.build(antTable, wordList.size()), Relation.build(hypTable, keys));
+	}
+
+	//Read a snapshot written by writeSnapshot
+	private static Lexicon fromSnapshot (ByteBuffer buffer){
+
+		if (buffer.getInt() != magic){
+			throw new IllegalStateException("not a lexicon snapshot");
+		}
+		if (buffer.getInt() != version){
+			throw new IllegalStateException("unsupported version");
+		}
+
+		StringTable w = StringTable.read(buffer);
+
+		return new Lexicon(w, Relation.read(buffer), Relation.read(buffer), Relation.read(buffer));
+	}
+
+	//Write the lexicon as a binary snapshot: a header, the string table and the three relations, every array
+	//starting at a multiple of 8 bytes
+	public void writeSnapshot (String outputfile){
+
+		File file = new File(outputfile);
+
+		if (file.getParentFile() != null){
+			file.getParentFile().mkdirs();
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))){
+			out.writeInt(magic);
+			out.writeInt(version);
+			words.write(out);
+			synonyms.write(out);
+			antonyms.write(out);
+			hypernyms.write(out);
+		}
+		catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+	//Build step: compile the text resources into the snapshot that is loaded at startup
+	public static void main (String[] args){
+
+		String outputfile = args.length > 0 ? args[0] : "target/classes" + snapshotResource;
+		long start = System.currentTimeMillis();
+		Lexicon lexicon = fromResources();
+
+		lexicon.writeSnapshot(outputfile);
+		System.out.println("Lexicon snapshot written to " + outputfile + " (" + lexicon.words.size() + " words, " +
+				(System.currentTimeMillis() - start) + " ms)");
+	}
+
+	private static int intern (String word, Map<String, Integer> wordIds, List<String> wordList){
+
+		Integer id = wordIds.get(word);
+
+		if (id == null){
+			id = wordList.size();
+			wordList.add(word);
+			wordIds.put(word, id);
+		}
+		return id;
+	}
+
+	private static int getPosIndex (String pos){
+
+		for (int i=0; i < posTags.length; i++){
+			if (posTags[i].equals(pos)){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static void addEntry (Map<Integer, Set<Integer>> table, int key, int value){
+
+		table.computeIfAbsent(key, k -> new LinkedHashSet<Integer>()).add(value);
+	}
+
+	private static BufferedReader open (String inputfile){
+
+		InputStream input = Lexicon.class.getResourceAsStream(inputfile);
+
+		if (input == null){
+			System.out.println("WARNING: " + inputfile + " not found, the table will be empty");
+			return null;
+		}
+		return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+	}
+
+	//Each line holds the part of speech and the words of a synset; every word is a synonym of the others
+	private static void readSynonyms (String inputfile, Map<String, Integer> wordIds, List<String> wordList, Map<Integer, Set<Integer>> table){
+
+		BufferedReader br = open(inputfile);
+
+		if (br == null){
+			return;
+		}
+
+		try{
+			String line = null;
+
+			while ((line = br.readLine()) != null) {
+				String pos = line.split("\\|")[0];
+				String[] synList = line.split("\\|")[1].split(", ");
+
+				//checking
+				if (!pos.equals("noun") && !pos.equals("verb") && !pos.equals("adjective") && !pos.equals("adverb")){
+					System.out.println("WARNING: invalid pos (" + pos + ")");
+				}
+
+				if (synList.length > 1){
+					int posIndex = pos.equals("noun") ? 0 : (pos.equals("verb") ? 1 : pos.equals("adjective") ? 2 : 3);
+					int[] synIds = new int[synList.length];
+
+					for (int i=0; i < synList.length; i++){
+						synIds[i] = intern(synList[i], wordIds, wordList);
+					}
+
+					for (int word : synIds){
+						for (int synonym : synIds){
+							if (synonym != word){
+								addEntry(table, word * posTags.length + posIndex, synonym);
+							}
+						}
+					}
+				}
+			}
+			br.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	//Each line holds a word and its antonyms; the relation is stored in both directions
+	private static void readAntonyms (String inputfile, Map<String, Integer> wordIds, List<String> wordList, Map<Integer, Set<Integer>> table){
+
+		BufferedReader br = open(inputfile);
+
+		if (br == null){
+			return;
+		}
+
+		try{
+			String line = null;
+
+			while ((line = br.readLine()) != null) {
+				int key = intern(line.split("\\|")[0], wordIds, wordList);
+				String[] antList = line.split("\\|")[1].split(", ");
+
+				for (String antonym : antList){
+					int antId = intern(antonym, wordIds, wordList);
+
+					addEntry(table, key, antId);
+					addEntry(table, antId, key);
+				}
+			}
+			br.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	//Each line holds the part of speech, the words of a synset and the words of its hypernyms
+	private static void readHypernyms (String inputfile, Map<String, Integer> wordIds, List<String> wordList, Map<Integer, Set<Integer>> table){
+
+		BufferedReader br = open(inputfile);
+
+		if (br == null){
+			return;
+		}
+
+		try{
+			String line = null;
+
+			while ((line = br.readLine()) != null) {
+				int posIndex = line.split("\\|")[0].equals("noun") ? 0 : 1;
+				String[] synset = line.split("\\|")[1].split(", ");
+				String[] hypList = line.split("\\|")[2].split(", ");
+
+				for (String word : synset){
+					int key = intern(word, wordIds, wordList) * posTags.length + posIndex;
+
+					for (String hypernym : hypList){
+						addEntry(table, key, intern(hypernym, wordIds, wordList));
+					}
+				}
+			}
+			br.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	//Get the ID of a word, or -1 if it is not in the lexicon
+	public int getId (String word){
+
+		return words.getId(word);
+	}
+
+	public String getWord (int id){
+
+		return words.getWord(id);
+	}
+
+	//Number of words in the lexicon; IDs go from 0 to size - 1
+	public int size (){
+
+		return words.size();
+	}
+
+	private int getKey (String word, String pos){
+
+		int id = getId(word);
+		int posIndex = getPosIndex(pos);
+
+		return (id < 0 || posIndex < 0) ? -1 : id * posTags.length + posIndex;
+	}
+
+	//Check whether two words are synonyms for a given part of speech (NN, VB, JJ or RB)
+	public boolean areSynonyms (String word1, String word2, String pos){
+
+		return synonyms.contains(getKey(word1, pos), getId(word2));
+	}
+
+	public List<String> getSynonyms (String word, String pos){
+
+		return synonyms.getWords(getKey(word, pos), words);
+	}
+
+	//Check whether two words are antonyms
+	public boolean areAntonyms (String word1, String word2){
+
+		return antonyms.contains(getId(word1), getId(word2));
+	}
+
+	public boolean areAntonyms (int id1, int id2){
+
+		return antonyms.contains(id1, id2);
+	}
+
+	public boolean hasAntonyms (int id){
+
+		return antonyms.count(id) > 0;
+	}
+
+	public List<String> getAntonyms (String word){
+
+		return antonyms.getWords(getId(word), words);
+	}
+
+	//Get the direct hypernyms of a word for a given part of speech (NN or VB)
+	public List<String> getHypernyms (String word, String pos){
+
+		return hypernyms.getWords(getKey(word, pos), words);
+	}
+
+	//A relation in compressed rows: the word IDs related to the entry k are targets[offsets[k]..offsets[k+1]). The
+	//(entry, word) pairs are also kept in an open-addressing hash set for constant time membership tests
+	private static final class Relation {
+
+		private static final long empty = -1L;
+		private final IntBuffer offsets;
+		private final IntBuffer targets;
+		private final LongBuffer pairs;
+		private final int mask;
+
+		private Relation (IntBuffer o, IntBuffer t, LongBuffer p){
+
+			offsets = o;
+			targets = t;
+			pairs = p;
+			mask = p.capacity() - 1;
+		}
+
+		private static Relation build (Map<Integer, Set<Integer>> table, int keys){
+
+			int size = 0;
+
+			for (Set<Integer> values : table.values()){
+				size += values.size();
+			}
+
+			int[] offsets = new int[keys + 1];
+			int[] targets = new int[size];
+			int next = 0;
+
+			for (int key=0; key < keys; key++){
+				offsets[key] = next;
+
+				Set<Integer> values = table.get(key);
+
+				if (values != null){
+					for (int value : values){
+						targets[next++] = value;
+					}
+				}
+			}
+			offsets[keys] = next;
+
+			int capacity = Snapshot.tableCapacity(size);
+			long[] pairs = new long[capacity];
+
+			Arrays.fill(pairs, empty);
+
+			for (int key=0; key < keys; key++){
+				for (int i=offsets[key]; i < offsets[key + 1]; i++){
+					long pair = toPair(key, targets[i]);
+					int slot = hash(pair, capacity - 1);
+
+					while (pairs[slot] != empty && pairs[slot] != pair){
+						slot = (slot + 1) & (capacity - 1);
+					}
+					pairs[slot] = pair;
+				}
+			}
+
+			return new Relation(IntBuffer.wrap(offsets), IntBuffer.wrap(targets), LongBuffer.wrap(pairs));
+		}
+
+		private static Relation read (ByteBuffer buffer){
+
+			buffer.position((buffer.position() + 7) & ~7);
+
+			int keys = buffer.getInt();
+			int size = buffer.getInt();
+			int capacity = buffer.getInt();
+			IntBuffer offsets = Snapshot.section(buffer, (keys + 1) * 4).asIntBuffer();
+			IntBuffer targets = Snapshot.section(buffer, size * 4).asIntBuffer();
+			LongBuffer pairs = Snapshot.section(buffer, capacity * 8).asLongBuffer();
+
+			return new Relation(offsets, targets, pairs);
+		}
+
+		private void write (DataOutputStream out) throws IOException{
+
+			Snapshot.pad(out);
+			out.writeInt(offsets.capacity() - 1);
+			out.writeInt(targets.capacity());
+			out.writeInt(pairs.capacity());
+			Snapshot.writeInts(out, offsets);
+			Snapshot.writeInts(out, targets);
+			Snapshot.pad(out);
+			for (int i=0; i < pairs.capacity(); i++){
+				out.writeLong(pairs.get(i));
+			}
+		}
+
+		private static long toPair (int key, int value){
+
+			return ((long) key << 32) | value;
+		}
+
+		private static int hash (long pair, int mask){
+
+			long h = pair * 0x9E3779B97F4A7C15L;
+
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+
+		private boolean contains (int key, int value){
+
+			if (key < 0 || value < 0){
+				return false;
+			}
+
+			long pair = toPair(key, value);
+			int slot = hash(pair, mask);
+
+			while (pairs.get(slot) != empty){
+				if (pairs.get(slot) == pair){
+					return true;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return false;
+		}
+
+		private int count (int key){
+
+			return (key < 0 || key >= offsets.capacity() - 1) ? 0 : offsets.get(key + 1) - offsets.get(key);
+		}
+
+		private List<String> getWords (int key, StringTable words){
+
+			if (key < 0 || key >= offsets.capacity() - 1){
+				return Collections.emptyList();
+			}
+
+			int start = offsets.get(key);
+			int end = offsets.get(key + 1);
+
+			return new AbstractList<String>(){
+
+				@Override
+				public String get (int index){
+
+					if (index < 0 || index >= end - start){
+						throw new IndexOutOfBoundsException("Index: " + index);
+					}
+					return words.getWord(targets.get(start + index));
+				}
+
+				@Override
+				public int size (){
+
+					return end - start;
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.stanford.nlp.trees.Tree;
+
+//Annotations of a sentence shared by all the checks and models that process it. Each annotation is computed the
+//first time it is requested and kept for the next ones; the lists returned are read-only
+public class SentenceAnnotation {
+
+	private final String sentence;
+	private final TextHandler th;
+	private List<String> tokens;
+	private List<String> words;
+	private Set<String> wordSet;
+	private Set<String> contentSet;
+	private Tree tree;
+	private List<String> chunks;
+
+	public SentenceAnnotation (String sentence, TextHandler handler){
+
+		this.sentence = sentence;
+		th = handler;
+	}
+
+	public String getSentence (){
+
+		return sentence;
+	}
+
+	//Lemmatized tokens, as "lemma;POS"
+	public List<String> getTokens (){
+
+		if (tokens == null){
+			tokens = Collections.unmodifiableList(th.tokenize(sentence));
+		}
+		return tokens;
+	}
+
+	//Lemmas of the tokens
+	public List<String> getWords (){
+
+		if (words == null){
+			List<String> lemmas = new ArrayList<String>();
+
+			for (String token : getTokens()){
+				lemmas.add(token.split(";")[0]);
+			}
+			words = Collections.unmodifiableList(lemmas);
+		}
+		return words;
+	}
+
+	//Distinct lemmas of the sentence. The sets belong to the annotation, so nothing is kept once the pair is done
+	public Set<String> getWordSet (){
+
+		if (wordSet == null){
+			wordSet = getSet(getWords(), false);
+		}
+		return wordSet;
+	}
+
+	//Distinct lemmas of the sentence that are not stop words
+	public Set<String> getContentSet (){
+
+		if (contentSet == null){
+			contentSet = getSet(getWords(), true);
+		}
+		return contentSet;
+	}
+
+	private Set<String> getSet (List<String> lemmas, boolean skipStopWords){
+
+		Set<String> set = new HashSet<String>();
+
+		for (String lemma : lemmas){
+			if (!skipStopWords || !th.isStopWord(lemma)){
+				set.add(lemma);
+			}
+		}
+		return Collections.unmodifiableSet(set);
+	}
+
+	//Check whether two sets of lemmas share a lemma
+	public static boolean intersects (Set<String> lemmas1, Set<String> lemmas2){
+
+		Set<String> smaller = (lemmas1.size() <= lemmas2.size()) ? lemmas1 : lemmas2;
+		Set<String> larger = (smaller == lemmas1) ? lemmas2 : lemmas1;
+
+		for (String lemma : smaller){
+			if (larger.contains(lemma)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//Check whether a set of lemmas has lemmas that are not in another one
+	public static boolean exceeds (Set<String> lemmas1, Set<String> lemmas2){
+
+		return !lemmas2.containsAll(lemmas1);
+	}
+
+	//Syntactic parse tree of the first sentence
+	public Tree getTree (){
+
+		if (tree == null){
+			tree = th.parse(sentence).get(0);
+		}
+		return tree;
+	}
+
+	//WordNet phrases of the sentence, as "phrase;POS"
+	public List<String> getChunks () throws Exception {
+
+		if (chunks == null){
+			chunks = Collections.unmodifiableList(th.split(sentence));
+		}
+		return chunks;
+	}
+
+}
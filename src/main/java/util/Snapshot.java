@@ -0,0 +1,118 @@
+package util;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Helpers shared by the binary snapshots (lexicon, hypernym index): every array in a snapshot starts at a multiple of
+//8 bytes, so that it can be viewed in place as an int or long buffer once the file is mapped
+final class Snapshot {
+
+	private Snapshot (){
+	}
+
+	//Map a snapshot file, or return null if it does not exist
+	static ByteBuffer map (String file){
+
+		if (file == null || !new File(file).exists()){
+			return null;
+		}
+
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)){
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		catch (IOException e){
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	//Map a snapshot resource if it is a plain file, or read it in one go if it is packaged in a jar
+	static ByteBuffer open (String resource){
+
+		URL url = Snapshot.class.getResource(resource);
+
+		if (url == null){
+			return null;
+		}
+
+		try{
+			if (url.getProtocol().equals("file")){
+				return map(Paths.get(url.toURI()).toString());
+			}
+
+			try (InputStream input = url.openStream()){
+				List<byte[]> chunks = new ArrayList<byte[]>();
+				int size = 0;
+				byte[] chunk = new byte[1 << 20];
+				int read;
+
+				while ((read = input.read(chunk)) > 0){
+					chunks.add(Arrays.copyOf(chunk, read));
+					size += read;
+				}
+
+				ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+
+				for (byte[] bytes : chunks){
+					buffer.put(bytes);
+				}
+				buffer.flip();
+
+				return buffer;
+			}
+		}
+		catch (IOException | URISyntaxException e){
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	//Pad the output so that the next section starts at a multiple of 8 bytes
+	static void pad (DataOutputStream out) throws IOException{
+
+		while (out.size() % 8 != 0){
+			out.writeByte(0);
+		}
+	}
+
+	//Get the next section of a snapshot as a buffer of its own, skipping the padding before it
+	static ByteBuffer section (ByteBuffer buffer, int bytes){
+
+		buffer.position((buffer.position() + 7) & ~7);
+
+		ByteBuffer slice = buffer.slice();
+
+		slice.limit(bytes);
+		buffer.position(buffer.position() + bytes);
+
+		return slice;
+	}
+
+	//Write an int array as a section of its own
+	static void writeInts (DataOutputStream out, IntBuffer values) throws IOException{
+
+		pad(out);
+		for (int i=0; i < values.capacity(); i++){
+			out.writeInt(values.get(i));
+		}
+	}
+
+	//Size of an open-addressing hash table, kept at most half full
+	static int tableCapacity (int size){
+
+		return Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+	}
+
+}
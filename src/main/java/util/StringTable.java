@@ -0,0 +1,145 @@
+package util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//String table of a snapshot: the UTF-8 bytes of all the words, the offset of each word in them, and an open-addressing hash
+//table from the hash code of a word to its ID
+final class StringTable {
+
+	private final IntBuffer offsets;
+	private final ByteBuffer bytes;
+	private final IntBuffer slots;
+	private final int mask;
+
+	private StringTable (IntBuffer o, ByteBuffer b, IntBuffer s){
+
+		offsets = o;
+		bytes = b;
+		slots = s;
+		mask = s.capacity() - 1;
+	}
+
+	static StringTable build (List<String> wordList){
+
+		int[] offsets = new int[wordList.size() + 1];
+		List<byte[]> encoded = new ArrayList<byte[]>();
+		int length = 0;
+
+		for (int i=0; i < wordList.size(); i++){
+			byte[] word = wordList.get(i).getBytes(StandardCharsets.UTF_8);
+
+			offsets[i] = length;
+			encoded.add(word);
+			length += word.length;
+		}
+		offsets[wordList.size()] = length;
+
+		ByteBuffer bytes = ByteBuffer.allocate(length);
+
+		for (byte[] word : encoded){
+			bytes.put(word);
+		}
+		bytes.flip();
+
+		int capacity = Snapshot.tableCapacity(wordList.size());
+		int[] slots = new int[capacity];
+
+		Arrays.fill(slots, -1);
+
+		for (int i=0; i < wordList.size(); i++){
+			int slot = hash(wordList.get(i), capacity - 1);
+
+			while (slots[slot] != -1){
+				slot = (slot + 1) & (capacity - 1);
+			}
+			slots[slot] = i;
+		}
+
+		return new StringTable(IntBuffer.wrap(offsets), bytes, IntBuffer.wrap(slots));
+	}
+
+	static StringTable read (ByteBuffer buffer){
+
+		int count = buffer.getInt();
+		int length = buffer.getInt();
+		int capacity = buffer.getInt();
+		IntBuffer offsets = Snapshot.section(buffer, (count + 1) * 4).asIntBuffer();
+		ByteBuffer bytes = Snapshot.section(buffer, length);
+		IntBuffer slots = Snapshot.section(buffer, capacity * 4).asIntBuffer();
+
+		return new StringTable(offsets, bytes, slots);
+	}
+
+	void write (DataOutputStream out) throws IOException{
+
+		out.writeInt(size());
+		out.writeInt(bytes.limit());
+		out.writeInt(slots.capacity());
+		Snapshot.writeInts(out, offsets);
+		Snapshot.pad(out);
+		for (int i=0; i < bytes.limit(); i++){
+			out.writeByte(bytes.get(i));
+		}
+		Snapshot.writeInts(out, slots);
+	}
+
+	private static int hash (String word, int mask){
+
+		int h = word.hashCode() * 0x9E3779B9;
+
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	int size (){
+
+		return offsets.capacity() - 1;
+	}
+
+	int getId (String word){
+
+		int slot = hash(word, mask);
+		byte[] encoded = null;
+
+		while (slots.get(slot) != -1){
+			int id = slots.get(slot);
+			int start = offsets.get(id);
+			int length = offsets.get(id + 1) - start;
+
+			if (encoded == null){
+				encoded = word.getBytes(StandardCharsets.UTF_8);
+			}
+
+			if (length == encoded.length){
+				int i = 0;
+
+				while (i < length && bytes.get(start + i) == encoded[i]){
+					i++;
+				}
+				if (i == length){
+					return id;
+				}
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	String getWord (int id){
+
+		int start = offsets.get(id);
+		byte[] word = new byte[offsets.get(id + 1) - start];
+
+		for (int i=0; i < word.length; i++){
+			word[i] = bytes.get(start + i);
+		}
+		return new String(word, StandardCharsets.UTF_8);
+	}
+
+}
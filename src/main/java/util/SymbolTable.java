@@ -0,0 +1,52 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SymbolTable {
+	
+	private Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	private List<String> symbols = new ArrayList<String>();
+	
+	//Get the ID of a symbol, assigning a new one if the symbol has not been seen before
+	public int getId (String symbol){
+		
+		Integer id = ids.get(symbol);
+		
+		if (id == null){
+			synchronized (this){
+				id = ids.get(symbol);
+				
+				if (id == null){
+					id = symbols.size();
+					symbols.add(symbol);
+					ids.put(symbol, id);
+				}
+			}
+		}
+		return id;
+	}
+	
+	//Get the ID of a symbol without adding it to the table, or -1 if it is unknown
+	public int lookup (String symbol){
+		
+		Integer id = ids.get(symbol);
+		
+		return id == null ? -1 : id;
+	}
+	
+	//Get the symbol with a given ID
+	public synchronized String getSymbol (int id){
+		
+		return symbols.get(id);
+	}
+	
+	//Number of symbols in the table
+	public int size (){
+		
+		return ids.size();
+	}
+	
+}
@@ -8,7 +8,10 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 import org.apache.log4j.Level;
@@ -34,11 +37,16 @@ public class TextHandler {
 	private static final List<String> verbForm = Arrays.asList("VB", "VBD", "VBG", "VBN", "VBP", "VBZ", "VBT");
 	private static final Double minNounIDF = 4.0;
 	private static final Double minVerbIDF = 6.0;
+	private static final int maxNormalized = 100000;
 	private static IDFCalc idfCalc;
 	private static List<String> stopWords;	
 	private IDictionary dict;
 	private StanfordCoreNLP pipeline;
-	
+	private StanfordCoreNLP lemmaPipeline;
+	private ThreadLocal<WordnetStemmer> stemmers;
+	private final Map<String, String> normalized = new ConcurrentHashMap<String, String>();
+	private final AtomicLong normalizeHits = new AtomicLong();
+	private final AtomicLong normalizeMisses = new AtomicLong();
 	
 	public TextHandler(String wnpath, String kb) throws IOException{
 		
@@ -50,6 +58,9 @@ public class TextHandler {
 		dict = new Dictionary(url);
 		dict.open();	
 		
+		//Stemmers are reused, one per thread
+		stemmers = ThreadLocal.withInitial(() -> new WordnetStemmer(dict));
+		
 		//Initialize the list of stop words
 		stopWords = loadStopWords();
 		
@@ -72,6 +83,11 @@ public class TextHandler {
 	    props.setProperty("annotators", "tokenize, ssplit, pos, lemma, parse, depparse");
 	    RedwoodConfiguration.empty().capture(System.err).apply();
 	    pipeline = new StanfordCoreNLP(props);
+	    
+	    //Lighter pipeline for the lemmatized tokens, which need no parsing
+	    Properties lemmaProps = new Properties();
+	    lemmaProps.setProperty("annotators", "tokenize, ssplit, pos, lemma");
+	    lemmaPipeline = new StanfordCoreNLP(lemmaProps);
 	    RedwoodConfiguration.current().clear().apply();
 	}
 	
@@ -178,7 +194,7 @@ public class TextHandler {
 		sentence = sentence.replaceAll("''", "\"").replaceAll("[\\W&&[^-']]", " ").replaceAll("[\\s]+", " ").trim(); 
 
 		CoreDocument document = new CoreDocument(sentence);
-		pipeline.annotate(document);
+		lemmaPipeline.annotate(document);
 
 		List<CoreLabel> tokens = document.tokens();
 
@@ -197,7 +213,7 @@ public class TextHandler {
 		List<String> chunks = new ArrayList<String>();
 		
 		//Word stemmer
-		WordnetStemmer stemmer = new WordnetStemmer(dict);
+		WordnetStemmer stemmer = stemmers.get();
 		
 		//Replace all non-alphanumerics but dashes and single apostrophes by blanks
 		sentence = sentence.replaceAll("''", "\"").replaceAll("[\\W&&[^-']]", " ").replaceAll("[\\s]+", " ").trim(); 
@@ -348,12 +364,56 @@ public class TextHandler {
 		return reverse(chunks);
 	}
 	
-	//Find the basic form of a word
+	//Find the basic form of a word. The stems are memoized by word and grammatical class; the table is emptied
+	//when it gets too large
 	public String normalize (String word, String posTag){
 		
+		String key = word + ";" + getWordClass(posTag);
+		String stem = normalized.get(key);
+		
+		if (stem != null){
+			normalizeHits.incrementAndGet();
+			return stem;
+		}
+		
+		normalizeMisses.incrementAndGet();
+		stem = stem(word, posTag);
+		
+		if (normalized.size() >= maxNormalized){
+			normalized.clear();
+		}
+		normalized.put(key, stem);
+		
+		return stem;
+	}
+	
+	//Get the grammatical class that decides how a word is stemmed
+	private String getWordClass (String posTag){
+		
+		if (posTag.startsWith("NN") || posTag.startsWith("VB") || posTag.startsWith("JJ") || posTag.startsWith("RB")){
+			return posTag.substring(0, 2);
+		}
+		return "";
+	}
+	
+	//Number of normalizations answered by the memo table
+	public long getNormalizeHits (){
+		
+		return normalizeHits.get();
+	}
+	
+	//Number of normalizations that had to look up the stem
+	public long getNormalizeMisses (){
+		
+		return normalizeMisses.get();
+	}
+	
+	//Look up the stem of a word in WordNet
+	private String stem (String word, String posTag){
+		
 		String stem = word;
 		
-		WordnetStemmer stemmer = new WordnetStemmer(dict);
+		WordnetStemmer stemmer = stemmers.get();
 		
 		if (!word.equals("'s")){
 			word = word.replaceAll("'s", "").replaceAll(" ", "_");
@@ -412,14 +472,29 @@ public class TextHandler {
 		return newList;	
 	}
 	
+	//Keep the words of a segmented text that can be head words: no stop words and no words with low IDF
+	public List<String> getContentWords (List<String> segment){
+		
+		Predicate<String> isStopWord = s -> isStopWord(s.split(";")[0]);
+		segment.removeIf(isStopWord);
+		
+		return removeLowIDF(segment);
+	}
+	
 	//Remove from the text-hypothesis pair all the information that is irrelevant for the entailment decision
   	public List<List<String>> cleanPair (String text, String hyp){
   		
+  		return cleanPair(tokenize(text), tokenize(hyp));
+  	}
+  	
+  	//Same as above, from the lemmatized tokens of the text and the hypothesis, which are not modified
+  	public List<List<String>> cleanPair (List<String> textLemmas, List<String> hypLemmas){
+  		
   		List<List<String>> cleaned = new ArrayList<List<String>>();
   		
   		try {	
-  			List<String> textTokens = tokenize(text);
-  			List<String> hypTokens = tokenize(hyp);
+  			List<String> textTokens = new ArrayList<String>(textLemmas);
+  			List<String> hypTokens = new ArrayList<String>(hypLemmas);
   			List<String> overlap = new ArrayList<String>();
   					
   			List<String> textWords = new ArrayList<String>();
@@ -1,82 +1,80 @@
 package util;
 
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
-import org.apache.commons.lang3.StringUtils;
-
 import edu.stanford.nlp.ling.IndexedWord;
 import edu.stanford.nlp.semgraph.SemanticGraph;
 import edu.stanford.nlp.semgraph.SemanticGraphEdge;
 import edu.stanford.nlp.util.MapFactory;
+import ted.TreeNode;
 
 public class TreeFormatter {
-	
+
 	private static final MapFactory<IndexedWord, IndexedWord> wordMapFactory = MapFactory.hashMapFactory();
-	
-	//Recursively get all children of a graph's node and append them to the tree
-	private void getAllChildren(SemanticGraph graph, IndexedWord currentNode, StringBuilder tree, Set<IndexedWord> visited) {
-		
+
+	//Recursively add all children of a graph's node to the tree: each edge becomes a relation node, whose only child
+	//is the node of the word it points to. Words already in the tree are added again, but not expanded
+	private void getAllChildren(SemanticGraph graph, IndexedWord currentNode, TreeNode tree, Set<IndexedWord> visited) {
+
 		visited.add(currentNode);
 	    List<SemanticGraphEdge> edges = graph.outgoingEdgeList(currentNode);
 	    Collections.sort(edges);
-	    
-	    if (edges.isEmpty()){
-	    	tree.append("}}");
+
+	    for (SemanticGraphEdge edge : edges) {
+	    	IndexedWord target = edge.getTarget();
+	    	TreeNode relation = new TreeNode(edge.getRelation().toString());
+	    	TreeNode word = new TreeNode(target.lemma().toLowerCase());
+
+	    	relation.addChild(word);
+	    	tree.addChild(relation);
+
+	    	if (!visited.contains(target)) { //recurse
+	    		getAllChildren(graph, target, word, visited);
+	    	}
 	    }
-	    else{
-		    for (SemanticGraphEdge edge : edges) {
-		    	IndexedWord target = edge.getTarget();
-		    	tree.append("{").append(edge.getRelation()).append("{").append(target.lemma().toLowerCase());
-		    	
-		    	if (!visited.contains(target)) { //recurse
-		    		getAllChildren(graph, target, tree, visited);
-		    	}
-		    	else{
-		    		tree.append("}}");
-		    	}
-		    }
-		    tree.append("}}");
-	    } 
 	}
 
-	//Convert a dependency parse graph to a bracketed-style tree
-	public String convertToTree (SemanticGraph dependencyParse){
-		
-		StringBuilder tree = new StringBuilder();
-		
-		Collection<IndexedWord> rootNodes = dependencyParse.getRoots();
+	//Convert a dependency parse graph to a tree rooted at the first root of the graph. Other roots, and words that
+	//cannot be reached from any root, are attached under the first root
+	public TreeNode convertToNode (SemanticGraph dependencyParse){
+
+		TreeNode tree = null;
 		Set<IndexedWord> visited = wordMapFactory.newSet();
-		
-		for (IndexedWord root : rootNodes) {
-			tree.append("{").append(root.lemma().toLowerCase());
-			getAllChildren(dependencyParse, root, tree, visited);
-			tree.deleteCharAt(tree.length()-1); //Last bracket is not necessary
+
+		for (IndexedWord root : dependencyParse.getRoots()) {
+			TreeNode rootNode = new TreeNode(root.lemma().toLowerCase());
+			getAllChildren(dependencyParse, root, rootNode, visited);
+
+			if (tree == null){
+				tree = rootNode;
+			}
+			else{
+				tree.addChild(rootNode);
+			}
 		}
-		
+
 		Set<IndexedWord> nodes = wordMapFactory.newSet();
 	    nodes.addAll(dependencyParse.vertexSet());
 	    nodes.removeAll(visited);
-	    
+
 	    while (!nodes.isEmpty()) {
 	    	IndexedWord node = nodes.iterator().next();
-	    	tree.append(node.lemma().toLowerCase());
-	    	getAllChildren(dependencyParse, node, tree, visited);
+	    	TreeNode wordNode = new TreeNode(node.lemma().toLowerCase());
+	    	getAllChildren(dependencyParse, node, wordNode, visited);
+	    	visited.add(node);
 	    	nodes.removeAll(visited);
+
+	    	if (tree == null){
+				tree = wordNode;
+			}
+			else{
+				tree.addChild(wordNode);
+			}
 	    }
-	    
-	    //Check whether the final tree is syntactically consistent
-	    int lBrackets = StringUtils.countMatches(tree.toString(), "{");
-	    int rBrackets = StringUtils.countMatches(tree.toString(), "}");
-	    
-	    if (lBrackets != rBrackets){
-	    	System.out.println("Error: Number of left and right brackets don't match.");
-	    	System.exit(1);
-	    }
-		
-		return tree.toString();
+
+		return tree;
 	}
 
 }
@@ -0,0 +1,124 @@
+package ted;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+//Compare the Zhang-Shasha distances with a brute-force tree edit distance on small random trees, with the costs used
+//by the TreeEditDistance model (deletion 2, insertion 2, renaming 3)
+public class ZhangShashaCheck {
+
+	private static final float delCost = 2;
+	private static final float insCost = 2;
+	private static final float renCost = 3;
+	private static final String[] labels = {"a", "b", "c"};
+	private static Map<String, Float> memo = new HashMap<String, Float>();
+
+	//Build a random tree with the given number of nodes
+	private static TreeNode randomTree (Random random, int size){
+
+		List<TreeNode> nodes = new ArrayList<TreeNode>();
+
+		for (int i=0; i < size; i++){
+			TreeNode node = new TreeNode(labels[random.nextInt(labels.length)]);
+
+			if (!nodes.isEmpty()){
+				nodes.get(random.nextInt(nodes.size())).addChild(node);
+			}
+			nodes.add(node);
+		}
+		return nodes.get(0);
+	}
+
+	private static String getKey (List<TreeNode> forest){
+
+		StringBuilder key = new StringBuilder();
+
+		for (TreeNode tree : forest){
+			key.append(tree.toBracketString());
+		}
+		return key.toString();
+	}
+
+	private static int countNodes (List<TreeNode> forest){
+
+		int count = 0;
+
+		for (TreeNode tree : forest){
+			count += 1 + countNodes(tree.getChildren());
+		}
+		return count;
+	}
+
+	//Edit distance between two ordered forests, straight from its recursive definition on the rightmost roots:
+	//delete the root of the first forest, insert the root of the second one, or match both roots
+	private static float forestDistance (List<TreeNode> f1, List<TreeNode> f2){
+
+		if (f1.isEmpty() || f2.isEmpty()){
+			return countNodes(f1) * delCost + countNodes(f2) * insCost;
+		}
+
+		String key = getKey(f1) + "|" + getKey(f2);
+		Float cached = memo.get(key);
+
+		if (cached != null){
+			return cached;
+		}
+
+		TreeNode v = f1.get(f1.size() - 1);
+		TreeNode w = f2.get(f2.size() - 1);
+		List<TreeNode> rest1 = f1.subList(0, f1.size() - 1);
+		List<TreeNode> rest2 = f2.subList(0, f2.size() - 1);
+		List<TreeNode> withoutV = new ArrayList<TreeNode>(rest1);
+		List<TreeNode> withoutW = new ArrayList<TreeNode>(rest2);
+
+		withoutV.addAll(v.getChildren());
+		withoutW.addAll(w.getChildren());
+
+		float delete = forestDistance(withoutV, f2) + delCost;
+		float insert = forestDistance(f1, withoutW) + insCost;
+		float match = forestDistance(rest1, rest2) + forestDistance(v.getChildren(), w.getChildren())
+				+ (v.getLabel().equals(w.getLabel()) ? 0 : renCost);
+		float distance = Math.min(delete, Math.min(insert, match));
+
+		memo.put(key, distance);
+
+		return distance;
+	}
+
+	public static void main (String[] args){
+
+		int pairs = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+		Random random = new Random(42);
+		ZhangShasha zs = new ZhangShasha(delCost, insCost, renCost);
+		int mismatches = 0;
+
+		for (int i=0; i < pairs; i++){
+			TreeNode t1 = randomTree(random, 1 + random.nextInt(8));
+			TreeNode t2 = randomTree(random, 1 + random.nextInt(8));
+			List<TreeNode> f1 = new ArrayList<TreeNode>();
+			List<TreeNode> f2 = new ArrayList<TreeNode>();
+
+			f1.add(t1);
+			f2.add(t2);
+
+			float expected = forestDistance(f1, f2);
+			float actual = zs.computeDistance(t1, t2);
+
+			if (Math.abs(expected - actual) > 1e-4){
+				mismatches++;
+				System.out.println("Mismatch: " + t1.toBracketString() + " " + t2.toBracketString() + " expected "
+						+ expected + ", got " + actual);
+			}
+		}
+
+		System.out.println(pairs + " pairs checked, " + mismatches + " mismatches");
+
+		if (mismatches > 0){
+			System.exit(1);
+		}
+	}
+
+}